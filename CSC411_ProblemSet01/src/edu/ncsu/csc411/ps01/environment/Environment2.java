@@ -17,6 +17,13 @@ import edu.ncsu.csc411.ps01.agent.Robot2;
  * @author Adam Gaweda
  */
 public class Environment2 {
+  /** Direction indices for the allocation-free neighbor methods. */
+  public static final int ABOVE = 0;
+  public static final int BELOW = 1;
+  public static final int LEFT = 2;
+  public static final int RIGHT = 3;
+  public static final int NUM_DIRECTIONS = 4;
+
   private Position[][] positions;
   private Map<Position, Tile> tiles;
   private ArrayList<Robot2> robots;
@@ -24,6 +31,9 @@ public class Environment2 {
   private int rows;
   private int cols;
   private int numRobots;
+  /** running totals kept by countTiles and cleanTile */
+  private int numCleanedTiles;
+  private int numTiles;
 
   /**
    * Calls Environment(int rows, int columns).
@@ -76,6 +86,8 @@ public class Environment2 {
       }
     }
 
+    countTiles();
+
     // Create robots
     for (int i = 0; i < numRobots; i++) {
       Robot2 robot = new Robot2(this);
@@ -108,6 +120,7 @@ public class Environment2 {
         }
       }
     }
+    countTiles();
   }
 
   /* Traditional Getters */
@@ -172,38 +185,70 @@ public class Environment2 {
     return neighbors;
   }
 
+  /**
+   * Allocation-free alternative to getNeighborTiles for search loops.
+   * Returns the tile next to the Robot in the given direction (ABOVE,
+   * BELOW, LEFT or RIGHT), or null if that location is outside the
+   * environment.
+   */
+  public Tile getNeighborTile(Robot2 robot, int direction) {
+    Position neighbor = getNeighborPosition(getRobotPosition(robot), direction);
+    return neighbor == null ? null : tiles.get(neighbor);
+  }
+
+  /**
+   * Returns the neighbor of p in the given direction (ABOVE, BELOW, LEFT
+   * or RIGHT), or null if that location is outside the environment.
+   */
+  public Position getNeighborPosition(Position p, int direction) {
+    switch (direction) {
+      case ABOVE: return p.getAbove();
+      case BELOW: return p.getBelow();
+      case LEFT:  return p.getLeft();
+      case RIGHT: return p.getRight();
+      default:    return null;
+    }
+  }
+
   /** Cleans the tile at coordinate [x][y]. */
   protected void cleanTile(int row, int col) {
     Position p = positions[row][col];
-    this.tiles.get(p).cleanTile();
+    Tile tile = this.tiles.get(p);
+    if (tile.getStatus() == TileStatus.DIRTY) {
+      this.numCleanedTiles++;
+    }
+    tile.cleanTile();
   }
 
   /** Counts number of cleaned tiles. */
   public int getNumCleanedTiles() {
-    int count = 0;
-    for (int row = 0; row < rows; row++) {
-      for (int col = 0; col < cols; col++) {
-        Position p = positions[row][col];
-        if (this.tiles.get(p).getStatus() == TileStatus.CLEAN) {
-          count++;
-        }
-      }
-    }
-    return count;
+    return this.numCleanedTiles;
   }
 
   /** Counts number of tiles that are not walls. */
   public int getNumTiles() {
-    int count = 0;
+    return this.numTiles;
+  }
+
+  /**
+   * Recounts the clean and passable tiles after the map is loaded. From then
+   * on only cleanTile changes a tile, so it keeps the totals up to date.
+   */
+  private void countTiles() {
+    this.numCleanedTiles = 0;
+    this.numTiles = 0;
     for (int row = 0; row < rows; row++) {
       for (int col = 0; col < cols; col++) {
         Position p = positions[row][col];
-        if (this.tiles.get(p).getStatus() != TileStatus.IMPASSABLE) {
-          count++;
+        TileStatus status = this.tiles.get(p).getStatus();
+        if (status == TileStatus.CLEAN) {
+          this.numCleanedTiles++;
+        }
+        if (status != TileStatus.IMPASSABLE) {
+          this.numTiles++;
         }
       }
     }
-    return count;
   }
 
   /* Determines if a particular [row][col] coordinate is within
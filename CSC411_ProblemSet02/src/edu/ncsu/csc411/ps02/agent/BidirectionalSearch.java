@@ -0,0 +1,236 @@
+package edu.ncsu.csc411.ps02.agent;
+
+import java.util.Arrays;
+
+/**
+ * Bidirectional A* over a unit-cost grid whose cells are numbered
+ * row * cols + col, in the style of the MM algorithm. One search grows
+ * forward from the start with the Manhattan distance to the goal as its
+ * heuristic, the other grows backward from the goal with the Manhattan
+ * distance to the start. Each open list is ordered by the larger of a node's
+ * f-score and twice its g-score, and the search with the lower minimum
+ * expands next, so neither search runs much past the middle of the best path.
+ *
+ * Whenever a node reached by one search has already been reached by the
+ * other, the combined cost is a candidate for the best path. Any path not yet
+ * found costs at least the lowest priority on either open list, and at least
+ * the lowest g-score on the forward open list plus the lowest on the backward
+ * one plus the step between them. The search stops once either bound reaches
+ * the best candidate, which is then optimal. On corridors and mazes, where the
+ * Manhattan distance badly underestimates, these bounds stop the two searches
+ * soon after they meet, where f-scores alone would let each walk most of the
+ * way to the other root. Nodes whose bounds already reach the best candidate
+ * are not opened.
+ *
+ * As in GridSearch, the per-node arrays are invalidated with a generation
+ * counter instead of being cleared between searches.
+ */
+public class BidirectionalSearch {
+	private static final int FORWARD = 0;
+	private static final int BACKWARD = 1;
+
+	private final int cols;
+	/** per direction: the cost from that direction's root, valid when seen == generation */
+	private final int[][] gScore = new int[2][];
+	/** per direction: the node each node was reached from */
+	private final int[][] parent = new int[2][];
+	/** per direction: the generation in which each node was last reached */
+	private final int[][] seen = new int[2][];
+	/** per direction: the generation in which each node was last closed */
+	private final int[][] closed = new int[2][];
+	/** per direction: the nodes waiting to be expanded */
+	private final GridSearch.OpenList[] open = new GridSearch.OpenList[2];
+	/** per direction: the same nodes ordered by g-score, for the lowest g-score on the open list */
+	private final GridSearch.OpenList[] openByG = new GridSearch.OpenList[2];
+	/** per direction: the node whose distance is that direction's heuristic */
+	private final int[] aim = new int[2];
+	private int generation;
+	/** reused buffer for successors */
+	private final int[] successors = new int[GridSearch.MAX_SUCCESSORS];
+	/** the number of nodes expanded by the last search, both directions combined */
+	private int expanded;
+
+	/**
+	 * Creates a search engine for a rows x cols grid.
+	 * @param rows the number of rows
+	 * @param cols the number of columns
+	 */
+	public BidirectionalSearch(int rows, int cols) {
+		this.cols = cols;
+		for (int side = FORWARD; side <= BACKWARD; side++) {
+			gScore[side] = new int[rows * cols];
+			parent[side] = new int[rows * cols];
+			seen[side] = new int[rows * cols];
+			closed[side] = new int[rows * cols];
+			open[side] = new GridSearch.BinaryHeap();
+			openByG[side] = new GridSearch.BinaryHeap();
+		}
+	}
+
+	/**
+	 * Selects the open list implementation for later searches.
+	 * @param bucketQueue true for bucket queues, false for binary heaps
+	 */
+	public void setBucketQueue(boolean bucketQueue) {
+		for (int side = FORWARD; side <= BACKWARD; side++) {
+			open[side] = bucketQueue ? new BucketQueue() : new GridSearch.BinaryHeap();
+		}
+	}
+
+	/**
+	 * Finds a shortest path between two cells.
+	 *
+	 * @param start the start cell index
+	 * @param goal the goal cell index
+	 * @param expander supplies each cell's passable neighbors; moves must be reversible
+	 * @return the cell indices from start to goal inclusive, or null if goal is unreachable
+	 */
+	public int[] search(int start, int goal, GridSearch.Expander expander) {
+		if (generation == Integer.MAX_VALUE) {
+			for (int side = FORWARD; side <= BACKWARD; side++) {
+				Arrays.fill(seen[side], 0);
+				Arrays.fill(closed[side], 0);
+			}
+			generation = 0;
+		}
+		generation++;
+		expanded = 0;
+		aim[FORWARD] = goal;
+		aim[BACKWARD] = start;
+		for (int side = FORWARD; side <= BACKWARD; side++) {
+			open[side].clear();
+			openByG[side].clear();
+		}
+		reach(FORWARD, start, 0, -1);
+		reach(BACKWARD, goal, 0, -1);
+
+		int best = start == goal ? 0 : Integer.MAX_VALUE;
+		int meet = start == goal ? start : -1;
+		while (true) {
+			int forwardMin = minPriority(FORWARD), backwardMin = minPriority(BACKWARD);
+			int forwardMinG = minG(FORWARD), backwardMinG = minG(BACKWARD);
+			if (forwardMin < 0 || backwardMin < 0 || Math.min(forwardMin, backwardMin) >= best
+					|| forwardMinG + backwardMinG + 1 >= best) {
+				// No path left to find could beat the best meeting
+				break;
+			}
+			int side = backwardMin < forwardMin ? BACKWARD : FORWARD;
+			int current = popOpen(side);
+			closed[side][current] = generation;
+			expanded++;
+
+			int other = 1 - side;
+			int otherMinG = side == FORWARD ? backwardMinG : forwardMinG;
+			int tentativeG = gScore[side][current] + 1;
+			int count = expander.expand(current, successors);
+			for (int i = 0; i < count; i++) {
+				int next = successors[i];
+				if (closed[side][next] == generation) {
+					continue;
+				}
+				if (seen[side][next] != generation || tentativeG < gScore[side][next]) {
+					if (seen[other][next] == generation) {
+						if (tentativeG + gScore[other][next] < best) {
+							best = tentativeG + gScore[other][next];
+							meet = next;
+						}
+					} else if (tentativeG + 1 + otherMinG >= best || tentativeG + heuristic(side, next) >= best) {
+						// A path through next must still cross the other side's open list
+						// and cover the heuristic, so it cannot beat the best meeting
+						continue;
+					}
+					reach(side, next, tentativeG, current);
+				}
+			}
+		}
+		return meet < 0 ? null : joinPaths(meet);
+	}
+
+	/** @return the number of nodes expanded by the last search, both directions combined */
+	public int getExpanded() {
+		return expanded;
+	}
+
+	/** Records a new best cost for node in one direction and adds it to that open list. */
+	private void reach(int side, int node, int g, int from) {
+		seen[side][node] = generation;
+		gScore[side][node] = g;
+		parent[side][node] = from;
+		open[side].push(priority(side, node, g), node);
+		openByG[side].push(g, node);
+	}
+
+	/**
+	 * The order in which MM expands nodes: the f-score, but never less than twice
+	 * the g-score, so neither search expands a node past the middle of the best path
+	 * until the other search has covered its half.
+	 */
+	private int priority(int side, int node, int g) {
+		return Math.max(g + heuristic(side, node), 2 * g);
+	}
+
+	/**
+	 * Finds the lowest priority among the open nodes of one direction, dropping
+	 * closed nodes from the front of its open list.
+	 * @return the lowest priority, or -1 if the direction has no open nodes
+	 */
+	private int minPriority(int side) {
+		int node = popOpen(side);
+		if (node < 0) {
+			return -1;
+		}
+		// A node's lowest entry comes out first, so this is its current priority
+		int priority = priority(side, node, gScore[side][node]);
+		open[side].push(priority, node);
+		return priority;
+	}
+
+	/**
+	 * Finds the lowest g-score among the open nodes of one direction, dropping
+	 * closed nodes from the front of its g-ordered list.
+	 * @return the lowest g-score, or -1 if the direction has no open nodes
+	 */
+	private int minG(int side) {
+		while (!openByG[side].isEmpty()) {
+			int node = openByG[side].pop();
+			if (closed[side][node] != generation) {
+				// A node's lowest entry comes out first, so this is its current g-score
+				openByG[side].push(gScore[side][node], node);
+				return gScore[side][node];
+			}
+		}
+		return -1;
+	}
+
+	/** Pops the next node that is not yet closed, or returns -1 if there is none. */
+	private int popOpen(int side) {
+		while (!open[side].isEmpty()) {
+			int node = open[side].pop();
+			if (closed[side][node] != generation) {
+				return node;
+			}
+		}
+		return -1;
+	}
+
+	/** Manhattan distance from a cell to the root of the opposite search. */
+	private int heuristic(int side, int node) {
+		int target = aim[side];
+		return Math.abs(node / cols - target / cols) + Math.abs(node % cols - target % cols);
+	}
+
+	/** Joins the forward path to the meeting cell with the backward path from it. */
+	private int[] joinPaths(int meet) {
+		int length = gScore[FORWARD][meet] + gScore[BACKWARD][meet] + 1;
+		int[] path = new int[length];
+		int i = gScore[FORWARD][meet];
+		for (int n = meet; n >= 0; n = parent[FORWARD][n]) {
+			path[i--] = n;
+		}
+		i = gScore[FORWARD][meet];
+		for (int n = parent[BACKWARD][meet]; n >= 0; n = parent[BACKWARD][n]) {
+			path[++i] = n;
+		}
+		return path;
+	}
+}
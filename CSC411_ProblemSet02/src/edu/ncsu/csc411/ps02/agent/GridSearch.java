@@ -0,0 +1,296 @@
+package edu.ncsu.csc411.ps02.agent;
+
+import java.util.Arrays;
+
+/**
+ * A reusable A* search over unit-cost graphs whose nodes are numbered 0..size-1.
+ * On a plain grid a node is the cell index row * cols + col.
+ *
+ * The g-scores, parent indices and closed flags live in flat int arrays indexed
+ * by node. Each search bumps a generation counter, and an entry only counts as
+ * set if its stamp matches the current generation, so the arrays never need to
+ * be cleared between searches. The open list is either a binary heap of primitive
+ * longs that pack the f-score and the node together, or a bucket queue (Dial's
+ * algorithm) that exploits the small integer f-scores of unit-cost grids.
+ */
+public class GridSearch {
+	/** the largest number of successors a node can have (4-connected grid) */
+	public static final int MAX_SUCCESSORS = 4;
+
+	/** Supplies the successors of a node. */
+	public interface Expander {
+		/**
+		 * Writes the successors of node into out.
+		 * @param node the node being expanded
+		 * @param out a buffer of at least MAX_SUCCESSORS entries
+		 * @return the number of successors written
+		 */
+		int expand(int node, int[] out);
+	}
+
+	/** Estimates the remaining cost from a node to the goal. */
+	public interface Heuristic {
+		/**
+		 * @param node the node to estimate from
+		 * @return an admissible estimate of the cost to the goal
+		 */
+		int estimate(int node);
+	}
+
+	/** The open list of a search: nodes ordered by their f-score. */
+	public interface OpenList {
+		/** Removes every entry. */
+		void clear();
+		/** @return true if there are no entries */
+		boolean isEmpty();
+		/**
+		 * Adds a node with priority f.
+		 * @param f the node's f-score, never negative
+		 * @param node the node
+		 */
+		void push(int f, int node);
+		/** @return the node with the lowest f-score, removing it */
+		int pop();
+	}
+
+	/** Decides whether a node satisfies the goal. */
+	public interface Goal {
+		/**
+		 * @param node the node to test
+		 * @return true if the search may stop at node
+		 */
+		boolean isGoal(int node);
+	}
+
+	/** the cost to reach each node, valid when seen[node] == generation */
+	private int[] gScore;
+	/** the node each node was reached from, valid when seen[node] == generation */
+	private int[] parent;
+	/** the generation in which each node was last reached */
+	private int[] seen;
+	/** the generation in which each node was last closed */
+	private int[] closed;
+	/** the current search's generation */
+	private int generation;
+	/** the nodes waiting to be expanded */
+	private OpenList open = new BinaryHeap();
+	/** reused buffer for successors */
+	private final int[] successors = new int[MAX_SUCCESSORS];
+	/** the number of nodes expanded by the last search */
+	private int expanded;
+
+	/**
+	 * Creates a search engine for nodes 0..size-1.
+	 * @param size the number of nodes
+	 */
+	public GridSearch(int size) {
+		this.gScore = new int[size];
+		this.parent = new int[size];
+		this.seen = new int[size];
+		this.closed = new int[size];
+	}
+
+	/**
+	 * Returns the node index of a grid cell.
+	 * @param row the cell's row
+	 * @param col the cell's column
+	 * @param cols the number of columns in the grid
+	 * @return row * cols + col
+	 */
+	public static int cellIndex(int row, int col, int cols) {
+		return row * cols + col;
+	}
+
+	/**
+	 * Selects the open list implementation for later searches.
+	 * @param bucketQueue true for a bucket queue, false for a binary heap
+	 */
+	public void setBucketQueue(boolean bucketQueue) {
+		this.open = bucketQueue ? new BucketQueue() : new BinaryHeap();
+	}
+
+	/** @return the number of nodes this engine can search over */
+	public int size() {
+		return seen.length;
+	}
+
+	/**
+	 * Grows the node arrays so that nodes 0..size-1 can be searched.
+	 * @param size the number of nodes required
+	 */
+	public void ensureCapacity(int size) {
+		if (size > seen.length) {
+			gScore = Arrays.copyOf(gScore, size);
+			parent = Arrays.copyOf(parent, size);
+			seen = Arrays.copyOf(seen, size);
+			closed = Arrays.copyOf(closed, size);
+		}
+	}
+
+	/**
+	 * Runs A* from start until a goal node is taken off the open list.
+	 *
+	 * @param start the start node
+	 * @param goal decides which nodes end the search
+	 * @param expander supplies each node's successors
+	 * @param heuristic an admissible estimate of the remaining cost
+	 * @return the nodes from start to the goal inclusive, or null if no goal is reachable
+	 */
+	public int[] search(int start, Goal goal, Expander expander, Heuristic heuristic) {
+		int goalNode = run(start, goal, expander, heuristic);
+		return goalNode < 0 ? null : pathTo(goalNode);
+	}
+
+	/**
+	 * Runs A* from start and leaves the results in place for getG and getParent.
+	 *
+	 * @param start the start node
+	 * @param goal decides which nodes end the search
+	 * @param expander supplies each node's successors
+	 * @param heuristic an admissible estimate of the remaining cost
+	 * @return the goal node that was reached, or -1 if none is reachable
+	 */
+	public int run(int start, Goal goal, Expander expander, Heuristic heuristic) {
+		nextGeneration();
+		open.clear();
+		expanded = 0;
+
+		seen[start] = generation;
+		gScore[start] = 0;
+		parent[start] = -1;
+		open.push(heuristic.estimate(start), start);
+
+		while (!open.isEmpty()) {
+			int current = open.pop();
+			if (closed[current] == generation) {
+				continue;
+			}
+			if (goal.isGoal(current)) {
+				return current;
+			}
+			closed[current] = generation;
+			expanded++;
+
+			int tentativeG = gScore[current] + 1;
+			int count = expander.expand(current, successors);
+			for (int i = 0; i < count; i++) {
+				int next = successors[i];
+				if (closed[next] == generation) {
+					continue;
+				}
+				if (seen[next] != generation || tentativeG < gScore[next]) {
+					seen[next] = generation;
+					gScore[next] = tentativeG;
+					parent[next] = current;
+					open.push(tentativeG + heuristic.estimate(next), next);
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Rebuilds the path from the last search's start to a reached node.
+	 * @param node a node reached by the last search
+	 * @return the nodes from the start to node inclusive
+	 */
+	public int[] pathTo(int node) {
+		int length = 0;
+		for (int n = node; n >= 0; n = parent[n]) {
+			length++;
+		}
+		int[] path = new int[length];
+		for (int n = node, i = length - 1; n >= 0; n = parent[n], i--) {
+			path[i] = n;
+		}
+		return path;
+	}
+
+	/**
+	 * @param node a node
+	 * @return the node's g-score from the last search, or -1 if it was not reached
+	 */
+	public int getG(int node) {
+		return seen[node] == generation ? gScore[node] : -1;
+	}
+
+	/**
+	 * @param node a node
+	 * @return the node's parent from the last search, or -1 for the start or unreached nodes
+	 */
+	public int getParent(int node) {
+		return seen[node] == generation ? parent[node] : -1;
+	}
+
+	/** @return the number of nodes expanded by the last search */
+	public int getExpanded() {
+		return expanded;
+	}
+
+	/** Starts a new generation, clearing the stamps only when the counter wraps. */
+	private void nextGeneration() {
+		if (generation == Integer.MAX_VALUE) {
+			Arrays.fill(seen, 0);
+			Arrays.fill(closed, 0);
+			generation = 0;
+		}
+		generation++;
+	}
+
+	/** A binary min-heap of primitive longs packing (f << 32 | node). */
+	static class BinaryHeap implements OpenList {
+		/** the heap entries */
+		private long[] heap = new long[64];
+		/** the number of entries in the heap */
+		private int size;
+
+		@Override
+		public void clear() {
+			size = 0;
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return size == 0;
+		}
+
+		@Override
+		public void push(int f, int node) {
+			if (size == heap.length) {
+				heap = Arrays.copyOf(heap, size * 2);
+			}
+			long entry = ((long) f << 32) | (node & 0xFFFFFFFFL);
+			int i = size++;
+			while (i > 0) {
+				int up = (i - 1) >>> 1;
+				if (heap[up] <= entry) {
+					break;
+				}
+				heap[i] = heap[up];
+				i = up;
+			}
+			heap[i] = entry;
+		}
+
+		@Override
+		public int pop() {
+			long top = heap[0];
+			long last = heap[--size];
+			int i = 0;
+			int half = size >>> 1;
+			while (i < half) {
+				int child = 2 * i + 1;
+				if (child + 1 < size && heap[child + 1] < heap[child]) {
+					child++;
+				}
+				if (last <= heap[child]) {
+					break;
+				}
+				heap[i] = heap[child];
+				i = child;
+			}
+			heap[i] = last;
+			return (int) top;
+		}
+	}
+}
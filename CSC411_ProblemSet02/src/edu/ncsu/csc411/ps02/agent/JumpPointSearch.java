@@ -0,0 +1,228 @@
+package edu.ncsu.csc411.ps02.agent;
+
+import java.util.Arrays;
+
+/**
+ * Jump Point Search for 4-connected, unit-cost grids.
+ *
+ * Plain A* on an open grid expands nearly every cell because many equal-cost
+ * paths differ only in the order of their moves. This search only considers
+ * paths in a canonical order: vertical moves may turn horizontal at any cell,
+ * but horizontal moves only turn vertical where a wall makes the turn
+ * necessary (a forced neighbor). Runs of cells with no decision are skipped by
+ * jumping, so only jump points enter the open list. Paths remain optimal.
+ *
+ * Like GridSearch, the g-scores, parents and closed flags live in flat arrays
+ * indexed by row * cols + col and are invalidated by a generation counter.
+ */
+public class JumpPointSearch {
+	/** Reports whether a cell can be entered. */
+	public interface Passability {
+		/**
+		 * @param row the cell's row, always within the grid
+		 * @param col the cell's column, always within the grid
+		 * @return true if the cell is not a wall
+		 */
+		boolean isPassable(int row, int col);
+	}
+
+	private final int rows;
+	private final int cols;
+	/** the cost to reach each jump point, valid when seen[node] == generation */
+	private final int[] gScore;
+	/** the jump point each jump point was reached from */
+	private final int[] parent;
+	/** the generation in which each node was last reached */
+	private final int[] seen;
+	/** the generation in which each node was last closed */
+	private final int[] closed;
+	private int generation;
+	/** the jump points waiting to be expanded */
+	private GridSearch.OpenList open = new GridSearch.BinaryHeap();
+	/** the number of jump points expanded by the last search */
+	private int expanded;
+
+	/** the passability and goal of the search in progress */
+	private Passability grid;
+	private int goalRow;
+	private int goalCol;
+
+	/**
+	 * Creates a search engine for a rows x cols grid.
+	 * @param rows the number of rows
+	 * @param cols the number of columns
+	 */
+	public JumpPointSearch(int rows, int cols) {
+		this.rows = rows;
+		this.cols = cols;
+		this.gScore = new int[rows * cols];
+		this.parent = new int[rows * cols];
+		this.seen = new int[rows * cols];
+		this.closed = new int[rows * cols];
+	}
+
+	/**
+	 * Selects the open list implementation for later searches.
+	 * @param bucketQueue true for a bucket queue, false for a binary heap
+	 */
+	public void setBucketQueue(boolean bucketQueue) {
+		this.open = bucketQueue ? new BucketQueue() : new GridSearch.BinaryHeap();
+	}
+
+	/**
+	 * Finds a shortest path between two cells.
+	 *
+	 * @param start the start cell index
+	 * @param goal the goal cell index
+	 * @param grid reports which cells can be entered
+	 * @return every cell index from start to goal inclusive, or null if goal is unreachable
+	 */
+	public int[] search(int start, int goal, Passability grid) {
+		this.grid = grid;
+		this.goalRow = goal / cols;
+		this.goalCol = goal % cols;
+		if (generation == Integer.MAX_VALUE) {
+			Arrays.fill(seen, 0);
+			Arrays.fill(closed, 0);
+			generation = 0;
+		}
+		generation++;
+		open.clear();
+		expanded = 0;
+
+		seen[start] = generation;
+		gScore[start] = 0;
+		parent[start] = -1;
+		open.push(heuristic(start), start);
+
+		while (!open.isEmpty()) {
+			int current = open.pop();
+			if (closed[current] == generation) {
+				continue;
+			}
+			if (current == goal) {
+				this.grid = null;
+				return expandPath(goal);
+			}
+			closed[current] = generation;
+			expanded++;
+
+			int row = current / cols;
+			int col = current % cols;
+			int from = parent[current];
+			if (from < 0) {
+				// The start may move in every direction
+				relax(current, jumpVertical(row, col, -1));
+				relax(current, jumpVertical(row, col, 1));
+				relax(current, jumpHorizontal(row, col, -1));
+				relax(current, jumpHorizontal(row, col, 1));
+			} else if (from % cols == col) {
+				// Arrived moving vertically: continue, or turn either way
+				int dRow = row > from / cols ? 1 : -1;
+				relax(current, jumpVertical(row, col, dRow));
+				relax(current, jumpHorizontal(row, col, -1));
+				relax(current, jumpHorizontal(row, col, 1));
+			} else {
+				// Arrived moving horizontally: continue, or turn where forced
+				int dCol = col > from % cols ? 1 : -1;
+				relax(current, jumpHorizontal(row, col, dCol));
+				if (isForced(row, col, dCol, -1)) {
+					relax(current, jumpVertical(row, col, -1));
+				}
+				if (isForced(row, col, dCol, 1)) {
+					relax(current, jumpVertical(row, col, 1));
+				}
+			}
+		}
+		this.grid = null;
+		return null;
+	}
+
+	/** @return the number of jump points expanded by the last search */
+	public int getExpanded() {
+		return expanded;
+	}
+
+	/** Records node as a successor of current if it improves node's g-score. */
+	private void relax(int current, int node) {
+		if (node < 0 || closed[node] == generation) {
+			return;
+		}
+		int g = gScore[current] + Math.abs(node / cols - current / cols) + Math.abs(node % cols - current % cols);
+		if (seen[node] != generation || g < gScore[node]) {
+			seen[node] = generation;
+			gScore[node] = g;
+			parent[node] = current;
+			open.push(g + heuristic(node), node);
+		}
+	}
+
+	/**
+	 * Moves horizontally from (row, col) until reaching the goal, a cell with a
+	 * forced vertical neighbor, or a wall.
+	 * @return the jump point's cell index, or -1 if there is none
+	 */
+	private int jumpHorizontal(int row, int col, int dCol) {
+		while (true) {
+			col += dCol;
+			if (col < 0 || col >= cols || !grid.isPassable(row, col)) {
+				return -1;
+			}
+			if ((row == goalRow && col == goalCol) || isForced(row, col, dCol, -1) || isForced(row, col, dCol, 1)) {
+				return row * cols + col;
+			}
+		}
+	}
+
+	/**
+	 * Moves vertically from (row, col) until reaching the goal, a wall, or a cell
+	 * from which a horizontal jump finds a jump point.
+	 * @return the jump point's cell index, or -1 if there is none
+	 */
+	private int jumpVertical(int row, int col, int dRow) {
+		while (true) {
+			row += dRow;
+			if (row < 0 || row >= rows || !grid.isPassable(row, col)) {
+				return -1;
+			}
+			if ((row == goalRow && col == goalCol) || jumpHorizontal(row, col, -1) >= 0 || jumpHorizontal(row, col, 1) >= 0) {
+				return row * cols + col;
+			}
+		}
+	}
+
+	/**
+	 * A cell reached by moving horizontally has a forced vertical neighbor when the
+	 * neighbor is open but the cell beside it, back along the move, is a wall, so no
+	 * canonical path could have turned vertical one column earlier.
+	 */
+	private boolean isForced(int row, int col, int dCol, int dRow) {
+		int next = row + dRow;
+		return next >= 0 && next < rows && grid.isPassable(next, col) && !grid.isPassable(next, col - dCol);
+	}
+
+	/** Manhattan distance from a cell to the goal. */
+	private int heuristic(int node) {
+		return Math.abs(node / cols - goalRow) + Math.abs(node % cols - goalCol);
+	}
+
+	/** Fills in the straight runs between jump points to list every cell on the path. */
+	private int[] expandPath(int goal) {
+		int length = 1;
+		for (int n = goal; parent[n] >= 0; n = parent[n]) {
+			length += gScore[n] - gScore[parent[n]];
+		}
+		int[] path = new int[length];
+		int i = length - 1;
+		path[i] = goal;
+		for (int n = goal; parent[n] >= 0; n = parent[n]) {
+			int from = parent[n];
+			int step = from % cols == n % cols ? (n > from ? cols : -cols) : (n > from ? 1 : -1);
+			for (int cell = n - step; cell != from; cell -= step) {
+				path[--i] = cell;
+			}
+			path[--i] = from;
+		}
+		return path;
+	}
+}
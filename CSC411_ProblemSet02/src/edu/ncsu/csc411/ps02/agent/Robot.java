@@ -1,14 +1,14 @@
 package edu.ncsu.csc411.ps02.agent;
 
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.Stack;
 
 import edu.ncsu.csc411.ps02.environment.Action;
+import edu.ncsu.csc411.ps02.environment.DistanceField;
 import edu.ncsu.csc411.ps02.environment.Environment;
 import edu.ncsu.csc411.ps02.environment.Position;
 import edu.ncsu.csc411.ps02.environment.Tile;
@@ -25,20 +25,98 @@ import edu.ncsu.csc411.ps02.environment.TileStatus;
 */
 
 public class Robot {
+	/** The search algorithms getActionAStar can plan with. */
+	public enum SearchMode {
+		/** A* expanding every passable neighbor */
+		ASTAR,
+		/** A* with the landmark (ALT) lower bound in place of the Manhattan distance */
+		LANDMARKS,
+		/** Jump Point Search, which skips symmetric paths across open areas */
+		JUMP_POINT,
+		/** A* from the robot and from the TARGET at once, stopping where they meet */
+		BIDIRECTIONAL,
+		/** no search; step downhill on the Environment's shared distance field to the TARGET */
+		DISTANCE_FIELD
+	}
+	
 	private Environment env;
 	
 	Stack<Tile> stack = new Stack<>();
 	Set<Position> visited = new HashSet<>();
 	Stack<Tile> movements = new Stack<>();
-    private PriorityQueue<Node> openSet = new PriorityQueue<>(Comparator.comparingInt(n -> n.f));
-    private Set<Position> closedSet = new HashSet<>();
-    private Map<Position, Position> cameFrom = new HashMap<>();
-    private Map<Position, Integer> gScore = new HashMap<>();
+    /** the A* engine, sized to the environment on first use */
+    private GridSearch search;
+    /** the Jump Point Search engine, sized to the environment on first use */
+    private JumpPointSearch jumpSearch;
+    /** the bidirectional A* engine, sized to the environment on first use */
+    private BidirectionalSearch bidirectionalSearch;
+    /** the algorithm getActionAStar plans with */
+    private SearchMode searchMode = SearchMode.ASTAR;
+    /** the number of nodes expanded by the most recent search */
+    private int expandedNodes;
+    /** the last planned path, starting at the robot's position when it was planned */
+    private List<Position> plannedPath = new ArrayList<>();
+    /** index into plannedPath of the position the robot is expected to be on */
+    private int pathCursor;
+    /** the target that plannedPath leads to */
+    private Position plannedTarget;
+    /** whether getActionAStar follows the last plan instead of searching every time step */
+    private boolean followPath = true;
+    /** whether the A* engine uses a bucket queue instead of a binary heap */
+    private boolean bucketQueue;
 	
 	
 	/** Initializes a Robot on a specific tile in the environment. */
 	public Robot (Environment env) { this.env = env; }
 	
+	/**
+	 * Enables or disables path following. When enabled, getActionAStar only searches
+	 * when there is no plan, the robot has left its planned path, or the next tile on
+	 * the path is no longer passable. When disabled, it searches on every time step.
+	 * 
+	 * @param followPath true to reuse the planned path between time steps
+	 */
+	public void setPathFollowing(boolean followPath) {
+		this.followPath = followPath;
+		this.plannedPath.clear();
+	}
+	
+	/**
+	 * Selects the open list used by the A* search. A bucket queue pushes and pops
+	 * in constant time since every f-score on a unit-cost grid is a small integer;
+	 * the binary heap is the default.
+	 * 
+	 * @param bucketQueue true to use a bucket queue, false for a binary heap
+	 */
+	public void setBucketQueue(boolean bucketQueue) {
+		this.bucketQueue = bucketQueue;
+		if (search != null) {
+			search.setBucketQueue(bucketQueue);
+		}
+		if (jumpSearch != null) {
+			jumpSearch.setBucketQueue(bucketQueue);
+		}
+		if (bidirectionalSearch != null) {
+			bidirectionalSearch.setBucketQueue(bucketQueue);
+		}
+	}
+	
+	/**
+	 * Selects the algorithm getActionAStar plans with. Every mode returns an
+	 * optimal path; they differ in how many nodes they expand to find it.
+	 * 
+	 * @param searchMode the algorithm to plan with
+	 */
+	public void setSearchMode(SearchMode searchMode) {
+		this.searchMode = searchMode;
+		this.plannedPath.clear();
+	}
+	
+	/** @return the number of nodes expanded by the most recent search */
+	public int getExpandedNodes() {
+		return expandedNodes;
+	}
+	
 	/**
     Problem Set 02 - Modify the getAction method below in order to simulate
     the passage of a single time-step. At each time-step, the Robot decides
@@ -184,6 +262,10 @@ public class Robot {
 	   * The robot calculates the optimal path from its current position to the target
 	   * using a distance heuristic and the path's fscore.
 	   * If the current tile is the target, the robot will do nothing.
+	   * 
+	   * With path following enabled, the path is kept after the search and the robot
+	   * steps along it, replanning only when it is not where the plan expects it to be
+	   * or the next tile on the path has become impassable.
 	   *
 	   * @return An action the robot takes
 	   */
@@ -195,114 +277,210 @@ public class Robot {
 	        return Action.DO_NOTHING;
 	    }
 
-	    openSet.clear();
-	    closedSet.clear();
-	    cameFrom.clear();
-	    gScore.clear();
-
-	    gScore.put(selfPos, 0);
+	    if (searchMode == SearchMode.DISTANCE_FIELD) {
+	        return descendDistanceField(selfPos);
+	    }
 
-	    openSet.add(new Node(selfPos, 0, heuristic(selfPos, targetPos)));
+	    if (followPath && isPlanValid(selfPos, targetPos)) {
+	        return followPlan(selfPos);
+	    }
 
-	    while (!openSet.isEmpty()) {
-	        Node current = openSet.poll();
+	    int cols = env.getCols();
+	    int targetNode = GridSearch.cellIndex(targetPos.getRow(), targetPos.getCol(), cols);
+	    int startNode = GridSearch.cellIndex(selfPos.getRow(), selfPos.getCol(), cols);
 
-	        if (current.position.equals(targetPos)) {
-	            return reconstructPath(current.position);
-	        }
+	    int[] path = planPath(startNode, targetNode);
+	    if (path == null) {
+	        return Action.DO_NOTHING;
+	    }
 
-	        closedSet.add(current.position);
+	    return reconstructPath(path, targetPos);
+	}
 
-	        for (Position neighborPos : env.getNeighborPositions(current.position).values()) {
-	            if (neighborPos == null || closedSet.contains(neighborPos)) {
-	                continue;
+	/**
+	 * Searches for a shortest path between two cells with the selected search mode.
+	 * 
+	 * @param startNode the cell index to start from
+	 * @param targetNode the cell index to reach
+	 * @return the cell indices from start to target inclusive, or null if there is no path
+	 */
+	private int[] planPath(int startNode, final int targetNode) {
+	    int rows = env.getRows();
+	    int cols = env.getCols();
+	    int[] path;
+	    switch (searchMode) {
+	        case JUMP_POINT:
+	            if (jumpSearch == null) {
+	                jumpSearch = new JumpPointSearch(rows, cols);
+	                jumpSearch.setBucketQueue(bucketQueue);
 	            }
-
-	            if (env.getTiles().get(neighborPos).getStatus() == TileStatus.IMPASSABLE) {
-	                continue;
+	            path = jumpSearch.search(startNode, targetNode, this::isPassable);
+	            expandedNodes = jumpSearch.getExpanded();
+	            break;
+	        case BIDIRECTIONAL:
+	            if (bidirectionalSearch == null) {
+	                bidirectionalSearch = new BidirectionalSearch(rows, cols);
+	                bidirectionalSearch.setBucketQueue(bucketQueue);
 	            }
-
-	            int tentativeGScore = gScore.get(current.position) + 1;
-
-	            if (!gScore.containsKey(neighborPos) || tentativeGScore < gScore.get(neighborPos)) {
-	                cameFrom.put(neighborPos, current.position);
-	                gScore.put(neighborPos, tentativeGScore);
-	                int fScore = tentativeGScore + heuristic(neighborPos, targetPos);
-	                openSet.add(new Node(neighborPos, tentativeGScore, fScore));
+	            path = bidirectionalSearch.search(startNode, targetNode, this::passableNeighbors);
+	            expandedNodes = bidirectionalSearch.getExpanded();
+	            break;
+	        case LANDMARKS:
+	        case ASTAR:
+	        default:
+	            if (search == null) {
+	                search = new GridSearch(rows * cols);
+	                search.setBucketQueue(bucketQueue);
 	            }
-	        }
+	            path = search.search(startNode, node -> node == targetNode,
+	                    this::passableNeighbors, node -> heuristic(node, targetNode));
+	            expandedNodes = search.getExpanded();
+	            break;
 	    }
+	    return path;
+	}
 
-	    return Action.DO_NOTHING;
+	/**
+	 * Moves to the neighbor closest to the TARGET according to the Environment's
+	 * distance field. The field is built once per Environment, so each step only
+	 * compares four distances.
+	 * 
+	 * @param selfPos the robot's current position
+	 * @return the action to take, or DO_NOTHING if the TARGET cannot be reached
+	 */
+	private Action descendDistanceField(Position selfPos) {
+	    DistanceField field = env.getTargetDistances();
+	    int row = selfPos.getRow();
+	    int col = selfPos.getCol();
+	    expandedNodes = 0;
+
+	    int best = field.getDistance(row, col);
+	    Action action = Action.DO_NOTHING;
+	    if (field.getDistance(row - 1, col) < best) {
+	        best = field.getDistance(row - 1, col);
+	        action = Action.MOVE_UP;
+	    }
+	    if (field.getDistance(row + 1, col) < best) {
+	        best = field.getDistance(row + 1, col);
+	        action = Action.MOVE_DOWN;
+	    }
+	    if (field.getDistance(row, col - 1) < best) {
+	        best = field.getDistance(row, col - 1);
+	        action = Action.MOVE_LEFT;
+	    }
+	    if (field.getDistance(row, col + 1) < best) {
+	        action = Action.MOVE_RIGHT;
+	    }
+	    return action;
 	}
 
 	/**
-	 * Reconstructs the path from the target position to the robot's current position.
-	 * The cameFrom map stores the previous positions for each node in the path
-	 * Determines the next step the robot will take and returns the robot's action.
+	 * Converts the cell indices of a path found by the A* engine back into Positions.
+	 * The path is stored as the robot's plan and the robot's first action along it is returned.
 	 * 
-	 * @param target the target position to reconstruct the path from
+	 * @param path the cell indices from the robot's position to the target
+	 * @param target the target position the path leads to
 	 * @return the action to take
 	 */
-	private Action reconstructPath(Position target) {
-	    Position current = target;
-	    Stack<Position> path = new Stack<>();
-
-	    while (cameFrom.containsKey(current)) {
-	        path.push(current);
-	        current = cameFrom.get(current);
+	private Action reconstructPath(int[] path, Position target) {
+	    int cols = env.getCols();
+	    plannedPath.clear();
+	    for (int node : path) {
+	        plannedPath.add(env.getPosition(node / cols, node % cols));
 	    }
+	    pathCursor = 0;
+	    plannedTarget = target;
+
+	    return followPlan(env.getRobotPosition(this));
+	}
 
-	    if (!path.isEmpty()) {
-	        Position next = path.pop();
-	        Position selfPos = env.getRobotPosition(this);
-	        if (next.getRow() < selfPos.getRow()) {
-	            return Action.MOVE_UP;
-	        } else if (next.getRow() > selfPos.getRow()) {
-	            return Action.MOVE_DOWN;
-	        } else if (next.getCol() < selfPos.getCol()) {
-	            return Action.MOVE_LEFT;
-	        } else if (next.getCol() > selfPos.getCol()) {
-	            return Action.MOVE_RIGHT;
+	/**
+	 * Writes the cell indices of the passable neighbors of a cell into out.
+	 * 
+	 * @param node the cell index to expand
+	 * @param out the buffer to write neighbors to
+	 * @return the number of neighbors written
+	 */
+	private int passableNeighbors(int node, int[] out) {
+	    int cols = env.getCols();
+	    int count = 0;
+	    for (int direction = 0; direction < Environment.NUM_DIRECTIONS; direction++) {
+	        int neighbor = env.getNeighborIndex(node, direction);
+	        if (neighbor >= 0 && isPassable(neighbor / cols, neighbor % cols)) {
+	            out[count++] = neighbor;
 	        }
 	    }
+	    return count;
+	}
+
+	/**
+	 * @param row the tile's row
+	 * @param col the tile's column
+	 * @return true if the tile at (row, col) is not a wall
+	 */
+	private boolean isPassable(int row, int col) {
+	    return env.getPositionTile(env.getPosition(row, col)).getStatus() != TileStatus.IMPASSABLE;
+	}
 
+	/**
+	 * Checks whether the stored plan can still be followed from the robot's position.
+	 * The plan is valid when it leads to the current target, the robot stands on the
+	 * position the plan expects, and the next position on the path is still passable.
+	 * 
+	 * @param selfPos the robot's current position
+	 * @param targetPos the current target position
+	 * @return true if the robot can keep following the plan
+	 */
+	private boolean isPlanValid(Position selfPos, Position targetPos) {
+	    if (pathCursor + 1 >= plannedPath.size() || !targetPos.equals(plannedTarget)) {
+	        return false;
+	    }
+	    if (!plannedPath.get(pathCursor).equals(selfPos)) {
+	        return false;
+	    }
+	    Position next = plannedPath.get(pathCursor + 1);
+	    return env.getTiles().get(next).getStatus() != TileStatus.IMPASSABLE;
+	}
+
+	/**
+	 * Returns the action that moves the robot to the next position on the plan
+	 * and advances the plan's cursor.
+	 * 
+	 * @param selfPos the robot's current position
+	 * @return the action to take
+	 */
+	private Action followPlan(Position selfPos) {
+	    if (pathCursor + 1 >= plannedPath.size()) {
+	        return Action.DO_NOTHING;
+	    }
+	    Position next = plannedPath.get(++pathCursor);
+	    if (next.getRow() < selfPos.getRow()) {
+	        return Action.MOVE_UP;
+	    } else if (next.getRow() > selfPos.getRow()) {
+	        return Action.MOVE_DOWN;
+	    } else if (next.getCol() < selfPos.getCol()) {
+	        return Action.MOVE_LEFT;
+	    } else if (next.getCol() > selfPos.getCol()) {
+	        return Action.MOVE_RIGHT;
+	    }
 	    return Action.DO_NOTHING;
 	}
 	
 	/**
-	 * heuristic that determines the distance from position a to position b.
+	 * heuristic that determines the Manhattan distance between two cells.
+	 * In LANDMARKS mode the Environment's landmark lower bound is used when
+	 * it is larger, which it is wherever walls force a detour.
 	 * 
-	 * @param a the starting position
-	 * @param b the target position
+	 * @param a the starting cell index
+	 * @param b the target cell index
 	 * @return the estimated cost from a to b
 	 */
-	private int heuristic(Position a, Position b) {
-        return Math.abs(a.getRow() - b.getRow()) + Math.abs(a.getCol() - b.getCol());
+	private int heuristic(int a, int b) {
+	    int cols = env.getCols();
+        int manhattan = Math.abs(a / cols - b / cols) + Math.abs(a % cols - b % cols);
+        if (searchMode == SearchMode.LANDMARKS) {
+            return Math.max(manhattan, env.getLandmarks().lowerBound(a, b));
+        }
+        return manhattan;
     }
-	
-	/**
-	 * An inner class that defines a node in the A* algorithm.
-	 * Each node has a position, a cost to reach that position, and the total cost to reach the target.
-	 */
-	private static class Node {
-		/** the position of the node */
-		Position position;
-		/** the cost to reach the node from the start position*/
-		int g;
-		/** the estimated total cost (g + h) */
-		int f;
-		
-		/**
-		 * Constructs a new node
-		 * @param position the position of the node
-		 * @param g the cost to reach this node
-		 * @param h the heuristic value to reach the target
-		 */
-		Node(Position position, int g, int h) {
-			this.position = position;
-			this.g = g;
-			this.f = g + h;
-		}
-	}
-}
\ No newline at end of file
+}
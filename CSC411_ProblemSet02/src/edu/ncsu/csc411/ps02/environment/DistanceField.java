@@ -0,0 +1,87 @@
+package edu.ncsu.csc411.ps02.environment;
+
+import java.util.Arrays;
+
+/**
+ * The number of steps from every tile to a single destination tile,
+ * computed with one breadth-first search outward from the destination
+ * over passable tiles. A robot standing anywhere can reach the destination
+ * optimally by always stepping to a neighbor with a smaller distance.
+ *
+ * Distances are stored in a flat array indexed by row * cols + col.
+ */
+public class DistanceField {
+	/** the distance of a tile from which the destination cannot be reached */
+	public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+	private final int rows, cols;
+	private final int[] distances;
+
+	/**
+	 * Runs a breadth-first search from the destination over the passable tiles of env.
+	 * @param env the environment to measure
+	 * @param destination the tile every distance is measured to
+	 */
+	public DistanceField(Environment env, Position destination) {
+		this.rows = env.getRows();
+		this.cols = env.getCols();
+		this.distances = new int[rows * cols];
+		Arrays.fill(distances, UNREACHABLE);
+
+		boolean[] passable = new boolean[rows * cols];
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++) {
+				Position p = env.getPosition(row, col);
+				passable[row * cols + col] = env.getTileStatus(p) != TileStatus.IMPASSABLE;
+			}
+		}
+
+		int[] queue = new int[rows * cols];
+		int head = 0, tail = 0;
+		int start = destination.getRow() * cols + destination.getCol();
+		distances[start] = 0;
+		queue[tail++] = start;
+		while (head < tail) {
+			int cell = queue[head++];
+			int row = cell / cols, col = cell % cols;
+			int next = distances[cell] + 1;
+			if (row > 0 && passable[cell - cols] && distances[cell - cols] == UNREACHABLE) {
+				distances[cell - cols] = next;
+				queue[tail++] = cell - cols;
+			}
+			if (row < rows - 1 && passable[cell + cols] && distances[cell + cols] == UNREACHABLE) {
+				distances[cell + cols] = next;
+				queue[tail++] = cell + cols;
+			}
+			if (col > 0 && passable[cell - 1] && distances[cell - 1] == UNREACHABLE) {
+				distances[cell - 1] = next;
+				queue[tail++] = cell - 1;
+			}
+			if (col < cols - 1 && passable[cell + 1] && distances[cell + 1] == UNREACHABLE) {
+				distances[cell + 1] = next;
+				queue[tail++] = cell + 1;
+			}
+		}
+	}
+
+	/**
+	 * @param row the tile's row
+	 * @param col the tile's column
+	 * @return the number of steps from [row][col] to the destination, or UNREACHABLE
+	 * if the tile is outside the environment or the destination cannot be reached from it
+	 */
+	public int getDistance(int row, int col) {
+		if (row < 0 || row >= rows || col < 0 || col >= cols) {
+			return UNREACHABLE;
+		}
+		return distances[row * cols + col];
+	}
+
+	/**
+	 * @param p the tile's position
+	 * @return the number of steps from p to the destination, or UNREACHABLE
+	 */
+	public int getDistance(Position p) {
+		return getDistance(p.getRow(), p.getCol());
+	}
+}
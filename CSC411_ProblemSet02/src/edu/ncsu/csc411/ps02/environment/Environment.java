@@ -18,6 +18,12 @@ import edu.ncsu.csc411.ps02.agent.Robot;
  * @author Adam Gaweda
  */
 public class Environment {
+	/* Direction indices for the allocation-free neighbor methods */
+	public static final int ABOVE = 0, BELOW = 1, LEFT = 2, RIGHT = 3;
+	public static final int NUM_DIRECTIONS = 4;
+	private static final int[] ROW_OFFSETS = {-1, 1, 0, 0};
+	private static final int[] COL_OFFSETS = {0, 0, -1, 1};
+	
 	private Position[][] positions;
 	private Map<Position, Tile> tiles;
 	private ArrayList<Robot> robots;
@@ -25,6 +31,8 @@ public class Environment {
 	private int rows, cols;
 	private int numRobots;
 	private Position target;
+	private DistanceField targetDistances;
+	private Landmarks landmarks;
 	
 	public Environment() { this(10,10); }
 	public Environment(int rows, int columns) {
@@ -109,6 +117,11 @@ public class Environment {
 		return this.tiles.get(p);
 	}
 	
+	// Returns the Position object at [row][col]
+	public Position getPosition(int row, int col) {
+		return this.positions[row][col];
+	}
+	
 	/*
 	 * Serves are the method for agents to 'sense' the Environment.
 	 * Returns a Map/Dictionary containing the tiles to the 
@@ -135,6 +148,34 @@ public class Environment {
 		return neighbors;
 	}
 	
+	/*
+	 * Allocation-free alternative to getNeighborPositions for search loops.
+	 * Returns the neighbor of p in the given direction (ABOVE, BELOW, LEFT or
+	 * RIGHT), or null if that location is outside the environment.
+	 */
+	public Position getNeighborPosition(Position p, int direction) {
+		switch(direction) {
+			case ABOVE: return p.getAbove();
+			case BELOW: return p.getBelow();
+			case LEFT: return p.getLeft();
+			case RIGHT: return p.getRight();
+			default: return null;
+		}
+	}
+	
+	/*
+	 * Returns the cell index (row * cols + col) of the neighbor of a cell in
+	 * the given direction, or -1 if that location is outside the environment.
+	 */
+	public int getNeighborIndex(int cell, int direction) {
+		int row = cell / this.cols + ROW_OFFSETS[direction];
+		int col = cell % this.cols + COL_OFFSETS[direction];
+		if (row < 0 || row >= this.rows || col < 0 || col >= this.cols) {
+			return -1;
+		}
+		return row * this.cols + col;
+	}
+	
 	/* Counts number of tiles that are not walls */
 	public int getNumTiles() {
 		int count = 0;
@@ -211,6 +252,30 @@ public class Environment {
 		return this.target;
 	}
 	
+	/*
+	 * Returns the number of steps from every tile to the TARGET tile. The
+	 * TARGET never moves and tiles never change, so the field is computed
+	 * on the first call and shared by every robot in this Environment.
+	 */
+	public DistanceField getTargetDistances() {
+		if (this.targetDistances == null) {
+			this.targetDistances = new DistanceField(this, this.target);
+		}
+		return this.targetDistances;
+	}
+	
+	/*
+	 * Returns the distances from a few landmark tiles to every tile, for
+	 * the ALT heuristic. Tiles never change, so the table is computed on
+	 * the first call and shared by every robot in this Environment.
+	 */
+	public Landmarks getLandmarks() {
+		if (this.landmarks == null) {
+			this.landmarks = new Landmarks(this, Landmarks.DEFAULT_COUNT);
+		}
+		return this.landmarks;
+	}
+	
 	// Check if any robots have reached the TARGET tile
 	public boolean goalConditionMet() {
 		for(Robot robot : robots) {
@@ -0,0 +1,91 @@
+package edu.ncsu.csc411.ps02.simulation;
+
+import edu.ncsu.csc411.ps02.agent.Robot;
+import edu.ncsu.csc411.ps02.agent.Robot.SearchMode;
+import edu.ncsu.csc411.ps02.environment.Environment;
+import edu.ncsu.csc411.ps02.utils.MapGenerator;
+import edu.ncsu.csc411.ps02.utils.MapManager;
+
+/**
+ * Compares the Robot's search modes on the public maps and on larger
+ * synthetic maps: open rooms with scattered walls, mazes, and long
+ * serpentine corridors like the spiral in map05. For every map and mode it
+ * reports the number of nodes expanded by one plan from the robot's start to
+ * the TARGET, the average time to plan, and whether the robot then reaches
+ * the TARGET.
+ */
+public class PlannerBenchmark {
+	private static final int REPEATS = 20;
+
+	public static void main(String[] args) {
+		System.out.printf("%-24s %-14s %10s %10s %8s%n", "map", "mode", "expanded", "ms/plan", "steps");
+		for (int i = 1; i <= 5; i++) {
+			String mapFile = String.format("maps/public/map%02d.txt", i);
+			benchmark(mapFile, MapManager.loadMap(mapFile));
+		}
+		int[] sizes = {100, 300, 500};
+		for (int size : sizes) {
+			MapGenerator generator = new MapGenerator(size);
+			benchmark(String.format("synthetic %dx%d", size, size), generator.generate(size, size));
+		}
+		for (int size : sizes) {
+			MapGenerator generator = new MapGenerator(size);
+			generator.setMaze(true);
+			generator.setLoopChance(0.1);
+			benchmark(String.format("maze %dx%d", size + 1, size + 1), generator.generate(size + 1, size + 1));
+		}
+		for (int size : sizes) {
+			benchmark(String.format("corridors %dx%d", size + 1, size + 1), corridorMap(size + 1, size + 1));
+		}
+	}
+
+	/** Plans once per search mode on the given map and prints one row for each. */
+	private static void benchmark(String name, String[] map) {
+		for (SearchMode mode : SearchMode.values()) {
+			Environment env = new Environment(map);
+			Robot robot = env.getRobots().get(0);
+			robot.setSearchMode(mode);
+			robot.setPathFollowing(false);
+
+			long start = System.nanoTime();
+			for (int i = 0; i < REPEATS; i++) {
+				robot.getActionAStar();
+			}
+			double ms = (System.nanoTime() - start) / 1e6 / REPEATS;
+			int expanded = robot.getExpandedNodes();
+
+			robot.setPathFollowing(true);
+			int steps = 0;
+			int limit = env.getRows() * env.getCols();
+			while (!env.goalConditionMet() && steps < limit) {
+				env.updateEnvironment();
+				steps++;
+			}
+			String result = env.goalConditionMet() ? String.valueOf(steps) : "-";
+			System.out.printf("%-24s %-14s %10d %10.3f %8s%n", name, mode, expanded, ms, result);
+		}
+	}
+
+	/**
+	 * Builds a rows x cols serpentine maze: every other row is a wall with a
+	 * single gap, alternating between the right and left ends, so the only path
+	 * from the top-left start to the TARGET winds through every corridor.
+	 */
+	private static String[] corridorMap(int rows, int cols) {
+		String[] map = new String[rows];
+		for (int row = 0; row < rows; row++) {
+			StringBuilder line = new StringBuilder(cols);
+			for (int col = 0; col < cols; col++) {
+				boolean wallRow = row % 2 == 1;
+				boolean gap = (row % 4 == 1 && col == cols - 1) || (row % 4 == 3 && col == 0);
+				if (row == rows - 1 && col == (row % 4 == 0 ? cols - 1 : 0)) {
+					line.append('T');
+				} else {
+					line.append(wallRow && !gap ? 'W' : 'C');
+				}
+			}
+			map[row] = line.toString();
+		}
+		return map;
+	}
+}
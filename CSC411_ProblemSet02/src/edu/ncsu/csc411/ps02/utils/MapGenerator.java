@@ -0,0 +1,300 @@
+package edu.ncsu.csc411.ps02.utils;
+
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generates maps in the format read by MapManager.loadMap: one line per
+ * row, with C for CLEAN tiles, W for walls and a single T for the TARGET.
+ * The robot always starts in the top-left corner.
+ *
+ * Maps are either open rooms with randomly scattered walls or mazes carved
+ * by a depth-first search, optionally with extra openings that add loops.
+ * Any open tile the start cannot reach is walled in, and the TARGET is
+ * placed on the reachable tile farthest from the start, so every map is
+ * solvable. The same seed and settings always produce the same map.
+ */
+public class MapGenerator {
+	/** the largest number of rows or columns a map may have */
+	public static final int MAX_SIZE = 2000;
+
+	private final Random random;
+	private double wallDensity = 0.2;
+	private boolean maze;
+	private double loopChance;
+
+	/**
+	 * Creates a generator.
+	 * @param seed the seed for every random choice
+	 */
+	public MapGenerator(long seed) {
+		this.random = new Random(seed);
+	}
+
+	/**
+	 * Sets the chance that each tile of an open map is a wall. Ignored for mazes.
+	 * @param wallDensity a probability between 0 and 1; the default is 0.2
+	 */
+	public void setWallDensity(double wallDensity) {
+		this.wallDensity = wallDensity;
+	}
+
+	/**
+	 * Selects between open maps and mazes of one-tile corridors.
+	 * @param maze true to carve a maze, false for scattered walls
+	 */
+	public void setMaze(boolean maze) {
+		this.maze = maze;
+	}
+
+	/**
+	 * Sets the chance that each wall separating two maze corridors is removed.
+	 * A perfect maze has exactly one path between any two tiles; removing
+	 * walls adds loops. Ignored for open maps.
+	 * @param loopChance a probability between 0 and 1; the default is 0
+	 */
+	public void setLoopChance(double loopChance) {
+		this.loopChance = loopChance;
+	}
+
+	/**
+	 * Generates a map.
+	 * @param rows the number of rows, from 1 to MAX_SIZE
+	 * @param cols the number of columns, from 1 to MAX_SIZE
+	 * @return the map's rows
+	 */
+	public String[] generate(int rows, int cols) {
+		if (rows < 1 || rows > MAX_SIZE || cols < 1 || cols > MAX_SIZE) {
+			throw new IllegalArgumentException("Map size out of range - " + rows + "x" + cols);
+		}
+		boolean[] open = maze ? carveMaze(rows, cols) : scatterWalls(rows, cols);
+		int[] distances = wallUnreachable(open, rows, cols);
+
+		int target = 0;
+		for (int cell = 0; cell < rows * cols; cell++) {
+			if (distances[cell] > distances[target]) {
+				target = cell;
+			}
+		}
+
+		String[] map = new String[rows];
+		for (int row = 0; row < rows; row++) {
+			StringBuilder line = new StringBuilder(cols);
+			for (int col = 0; col < cols; col++) {
+				int cell = row * cols + col;
+				line.append(cell == target ? 'T' : open[cell] ? 'C' : 'W');
+			}
+			map[row] = line.toString();
+		}
+		return map;
+	}
+
+	/**
+	 * Opens every tile except a random fraction of walls, keeping the start open
+	 * and connected to the largest open area.
+	 */
+	private boolean[] scatterWalls(int rows, int cols) {
+		boolean[] open = new boolean[rows * cols];
+		for (int cell = 0; cell < open.length; cell++) {
+			open[cell] = cell == 0 || random.nextDouble() >= wallDensity;
+		}
+		connectStart(open, rows, cols);
+		return open;
+	}
+
+	/**
+	 * Carves a passage from the start to the largest group of connected open
+	 * tiles, unless the start already belongs to it, so that scattered walls
+	 * cannot shut the start into a small pocket before wallUnreachable walls off
+	 * everything else. The passage runs down the first column to the row of the
+	 * group's tile nearest the start, then along that row.
+	 */
+	private static void connectStart(boolean[] open, int rows, int cols) {
+		int[] group = new int[open.length];
+		int[] queue = new int[open.length];
+		int groups = 0, largest = 0, largestSize = 0;
+		for (int first = 0; first < open.length; first++) {
+			if (!open[first] || group[first] != 0) {
+				continue;
+			}
+			group[first] = ++groups;
+			int head = 0, tail = 0;
+			queue[tail++] = first;
+			while (head < tail) {
+				int cell = queue[head++];
+				for (int direction = 0; direction < 4; direction++) {
+					int next = neighbor(cell, direction, rows, cols);
+					if (next >= 0 && open[next] && group[next] == 0) {
+						group[next] = groups;
+						queue[tail++] = next;
+					}
+				}
+			}
+			if (tail > largestSize) {
+				largest = groups;
+				largestSize = tail;
+			}
+		}
+		if (group[0] == largest) {
+			return;
+		}
+		int nearest = -1;
+		for (int cell = 0; cell < open.length; cell++) {
+			if (group[cell] == largest && (nearest < 0
+					|| cell / cols + cell % cols < nearest / cols + nearest % cols)) {
+				nearest = cell;
+			}
+		}
+		int row = nearest / cols, col = nearest % cols;
+		for (int r = 0; r <= row; r++) {
+			open[r * cols] = true;
+		}
+		for (int c = 0; c <= col; c++) {
+			open[row * cols + c] = true;
+		}
+	}
+
+	/**
+	 * @param direction 0 to 3 for above, below, left and right
+	 * @return the index of cell's neighbor, or -1 if it is outside the map
+	 */
+	private static int neighbor(int cell, int direction, int rows, int cols) {
+		int row = cell / cols, col = cell % cols;
+		switch (direction) {
+		case 0: return row > 0 ? cell - cols : -1;
+		case 1: return row < rows - 1 ? cell + cols : -1;
+		case 2: return col > 0 ? cell - 1 : -1;
+		default: return col < cols - 1 ? cell + 1 : -1;
+		}
+	}
+
+	/**
+	 * Carves a maze whose corridors run through the tiles with even rows and
+	 * columns, using a depth-first search with an explicit stack.
+	 */
+	private boolean[] carveMaze(int rows, int cols) {
+		boolean[] open = new boolean[rows * cols];
+		int[] stack = new int[(rows / 2 + 1) * (cols / 2 + 1)];
+		int[] choices = new int[4];
+		int size = 0;
+		open[0] = true;
+		stack[size++] = 0;
+		while (size > 0) {
+			int cell = stack[size - 1];
+			int row = cell / cols, col = cell % cols;
+			int count = 0;
+			if (row >= 2 && !open[cell - 2 * cols]) choices[count++] = -cols;
+			if (row + 2 < rows && !open[cell + 2 * cols]) choices[count++] = cols;
+			if (col >= 2 && !open[cell - 2]) choices[count++] = -1;
+			if (col + 2 < cols && !open[cell + 2]) choices[count++] = 1;
+			if (count == 0) {
+				size--;
+				continue;
+			}
+			int step = choices[random.nextInt(count)];
+			open[cell + step] = true;
+			open[cell + 2 * step] = true;
+			stack[size++] = cell + 2 * step;
+		}
+
+		// Knock out walls that sit between two corridors to add loops
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++) {
+				int cell = row * cols + col;
+				if (open[cell] || (row + col) % 2 == 0) {
+					continue;
+				}
+				boolean vertical = row % 2 == 1 && col % 2 == 0 && row + 1 < rows;
+				boolean horizontal = row % 2 == 0 && col % 2 == 1 && col + 1 < cols;
+				if ((vertical || horizontal) && random.nextDouble() < loopChance) {
+					open[cell] = true;
+				}
+			}
+		}
+		return open;
+	}
+
+	/**
+	 * Turns every open tile the start cannot reach into a wall.
+	 * @return the number of steps from the start to every tile, or -1 for walls
+	 */
+	private static int[] wallUnreachable(boolean[] open, int rows, int cols) {
+		int[] distances = new int[rows * cols];
+		Arrays.fill(distances, -1);
+		int[] queue = new int[rows * cols];
+		int head = 0, tail = 0;
+		distances[0] = 0;
+		queue[tail++] = 0;
+		while (head < tail) {
+			int cell = queue[head++];
+			int row = cell / cols, col = cell % cols;
+			int next = distances[cell] + 1;
+			if (row > 0 && open[cell - cols] && distances[cell - cols] < 0) {
+				distances[cell - cols] = next;
+				queue[tail++] = cell - cols;
+			}
+			if (row < rows - 1 && open[cell + cols] && distances[cell + cols] < 0) {
+				distances[cell + cols] = next;
+				queue[tail++] = cell + cols;
+			}
+			if (col > 0 && open[cell - 1] && distances[cell - 1] < 0) {
+				distances[cell - 1] = next;
+				queue[tail++] = cell - 1;
+			}
+			if (col < cols - 1 && open[cell + 1] && distances[cell + 1] < 0) {
+				distances[cell + 1] = next;
+				queue[tail++] = cell + 1;
+			}
+		}
+		for (int cell = 0; cell < open.length; cell++) {
+			open[cell] = distances[cell] >= 0;
+		}
+		return distances;
+	}
+
+	/**
+	 * Writes a map to a file that MapManager.loadMap can read.
+	 * @param map the map's rows
+	 * @param filename the file to write
+	 */
+	public static void save(String[] map, String filename) {
+		try (PrintWriter out = new PrintWriter(filename)) {
+			for (String line : map) {
+				out.println(line);
+			}
+		} catch (FileNotFoundException fnf) {
+			String errorMsg = "%s is not a valid filename\n";
+			System.out.printf(errorMsg, filename);
+			fnf.printStackTrace();
+		}
+	}
+
+	/**
+	 * Generates one map and writes it to a file, or prints it.
+	 * Usage: MapGenerator rows cols seed [wallDensity|maze] [filename]
+	 */
+	public static void main(String[] args) {
+		if (args.length < 3) {
+			System.out.println("Usage: MapGenerator rows cols seed [wallDensity|maze] [filename]");
+			return;
+		}
+		MapGenerator generator = new MapGenerator(Long.parseLong(args[2]));
+		if (args.length > 3) {
+			if (args[3].equals("maze")) {
+				generator.setMaze(true);
+			} else {
+				generator.setWallDensity(Double.parseDouble(args[3]));
+			}
+		}
+		String[] map = generator.generate(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+		if (args.length > 4) {
+			save(map, args[4]);
+		} else {
+			for (String line : map) {
+				System.out.println(line);
+			}
+		}
+	}
+}
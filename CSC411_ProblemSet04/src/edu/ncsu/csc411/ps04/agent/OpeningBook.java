@@ -0,0 +1,228 @@
+package edu.ncsu.csc411.ps04.agent;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import edu.ncsu.csc411.ps04.environment.Bitboard;
+import edu.ncsu.csc411.ps04.environment.Environment;
+
+/**
+ * Best moves for the early positions of a game, searched ahead of time.
+ * The opening positions are the same in every game and the most expensive
+ * to search, since the most pieces are still to be placed.
+ *
+ * The book is built offline by main, which searches every position up to a
+ * given number of pieces and writes one 8-byte record per position: its
+ * Bitboard.getKey shifted up 8 bits, and its best move in the low 8. The
+ * records follow a short header and are sorted by value, which puts them in
+ * key order, so a lookup is a binary search. The file is memory-mapped
+ * rather than read, so opening a book costs no heap and the operating
+ * system pages in only the records used.
+ *
+ * StudentRobot plays from the book at DEFAULT_FILE whenever one has been
+ * built there, and searches every move when there is none.
+ */
+public class OpeningBook {
+	/** where main writes the book when no file is given */
+	public static final String DEFAULT_FILE = "config/openingBook.bin";
+
+	/** the book at DEFAULT_FILE, once openDefault has looked for it */
+	private static OpeningBook defaultBook;
+	private static boolean defaultOpened;
+
+	/** "C4BK", marks the start of a book file */
+	private static final int MAGIC = 0x4334424B;
+	private static final int VERSION = 1;
+	/** magic, version, rows, cols, maximum pieces, search depth, and record count */
+	private static final int HEADER_BYTES = 7 * Integer.BYTES;
+	private static final int MOVE_BITS = 8;
+	/** keys must leave the sign bit clear so that records sort in key order */
+	private static final int KEY_BITS = Long.SIZE - MOVE_BITS - 1;
+
+	private final MappedByteBuffer buffer;
+	private final int rows, cols, maxPly, depth, size;
+
+	private OpeningBook(MappedByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+		if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+			throw new IOException("Not an opening book");
+		}
+		this.rows = buffer.getInt(8);
+		this.cols = buffer.getInt(12);
+		this.maxPly = buffer.getInt(16);
+		this.depth = buffer.getInt(20);
+		this.size = buffer.getInt(24);
+		if (buffer.capacity() < HEADER_BYTES + (long) size * Long.BYTES) {
+			throw new IOException("Opening book is truncated");
+		}
+	}
+
+	/**
+	 * Maps a book file into memory.
+	 * @param file the book to open
+	 * @return the book
+	 * @throws IOException if the file cannot be read or is not a book
+	 */
+	public static OpeningBook open(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			// The mapping stays valid after the channel is closed
+			return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Opens the book at DEFAULT_FILE the first time it is called, and returns the
+	 * same book afterwards, so every robot shares one mapping.
+	 * @return the default book, or null if there is no readable book at DEFAULT_FILE
+	 */
+	public static synchronized OpeningBook openDefault() {
+		if (!defaultOpened) {
+			defaultOpened = true;
+			Path file = Paths.get(DEFAULT_FILE);
+			if (Files.isRegularFile(file)) {
+				try {
+					defaultBook = open(file);
+				} catch (IOException e) {
+					System.err.println("Ignoring opening book " + file + " - " + e.getMessage());
+				}
+			}
+		}
+		return defaultBook;
+	}
+
+	/**
+	 * Finds the book move for a position.
+	 * @param board the position
+	 * @param player the player to move
+	 * @return the best column, or -1 if the position is not in the book
+	 */
+	public int lookup(Bitboard board, int player) {
+		if (board.getRows() != rows || board.getCols() != cols || board.getMoveCount() > maxPly) {
+			return -1;
+		}
+		long key = board.getKey(player);
+		int low = 0, high = size - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			long record = buffer.getLong(HEADER_BYTES + mid * Long.BYTES);
+			long midKey = record >>> MOVE_BITS;
+			if (midKey < key) {
+				low = mid + 1;
+			} else if (midKey > key) {
+				high = mid - 1;
+			} else {
+				return (int) (record & ((1 << MOVE_BITS) - 1));
+			}
+		}
+		return -1;
+	}
+
+	/** @return the number of positions in the book */
+	public int size() { return this.size; }
+	/** @return the most pieces on the board in a book position */
+	public int getMaxPly() { return this.maxPly; }
+	/** @return the depth the book's moves were searched to */
+	public int getDepth() { return this.depth; }
+
+	/**
+	 * Searches every position with up to maxPly pieces that can arise in a game,
+	 * and writes the best move of each to a book file. Positions where the game is
+	 * over are left out.
+	 * @param file the file to write
+	 * @param rows the number of rows on the board
+	 * @param cols the number of columns on the board
+	 * @param maxPly the most pieces on the board in a book position
+	 * @param depth the number of plies to search each position
+	 * @return the number of positions written
+	 * @throws IOException if the file cannot be written
+	 * @throws IllegalArgumentException if the board's keys do not fit in a record
+	 */
+	public static int build(Path file, int rows, int cols, int maxPly, int depth) throws IOException {
+		if ((rows + 1) * cols > KEY_BITS) {
+			throw new IllegalArgumentException("Board is too large for an opening book - " + rows + "x" + cols);
+		}
+		// One searcher per player, since search scores are from the player to move
+		StudentRobot[] searchers = new StudentRobot[2];
+		for (int player = 0; player < 2; player++) {
+			searchers[player] = new StudentRobot(new Environment(rows, cols));
+			searchers[player].setDepth(depth);
+		}
+
+		Set<Long> seen = new HashSet<>();
+		long[] records = new long[16];
+		int count = 0;
+		Bitboard start = new Bitboard(rows, cols);
+		// Depth-first over the game tree, with seen removing transpositions
+		Bitboard[] stack = new Bitboard[maxPly + 1];
+		int[] next = new int[maxPly + 1];
+		stack[0] = start;
+		int ply = 0;
+		while (ply >= 0) {
+			Bitboard board = stack[ply];
+			int player = ply % 2 == 0 ? Bitboard.YELLOW : Bitboard.RED;
+			if (next[ply] == 0) {
+				if (!seen.add(board.getKey(player))) {
+					ply--;
+					continue;
+				}
+				int move = searchers[player].chooseMove(board, player);
+				if (count == records.length) {
+					records = Arrays.copyOf(records, 2 * count);
+				}
+				records[count++] = board.getKey(player) << MOVE_BITS | move;
+			}
+			if (ply == maxPly || next[ply] == cols) {
+				next[ply] = 0;
+				ply--;
+				continue;
+			}
+			int col = next[ply]++;
+			if (!board.canPlay(col) || board.wouldWin(col, player) || board.getMoveCount() + 1 == rows * cols) {
+				continue;
+			}
+			Bitboard child = new Bitboard(board);
+			child.play(col, player);
+			stack[++ply] = child;
+		}
+
+		Arrays.sort(records, 0, count);
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(rows);
+			out.writeInt(cols);
+			out.writeInt(maxPly);
+			out.writeInt(depth);
+			out.writeInt(count);
+			for (int i = 0; i < count; i++) {
+				out.writeLong(records[i]);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Builds the book for the standard 6x7 board.
+	 * @param args optional: the file to write, the most pieces in a book position (default 4),
+	 * and the search depth (default 12)
+	 */
+	public static void main(String[] args) throws IOException {
+		Path file = Paths.get(args.length > 0 ? args[0] : DEFAULT_FILE);
+		int maxPly = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+		int depth = args.length > 2 ? Integer.parseInt(args[2]) : 12;
+		long start = System.nanoTime();
+		int count = build(file, 6, 7, maxPly, depth);
+		System.out.printf("Wrote %d positions up to ply %d at depth %d to %s in %.1f s%n", count, maxPly, depth,
+				file, (System.nanoTime() - start) / 1e9);
+	}
+}
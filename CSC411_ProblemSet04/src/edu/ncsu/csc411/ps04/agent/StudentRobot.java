@@ -1,19 +1,75 @@
 package edu.ncsu.csc411.ps04.agent;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import edu.ncsu.csc411.ps04.environment.Bitboard;
 import edu.ncsu.csc411.ps04.environment.Environment;
 import edu.ncsu.csc411.ps04.environment.Position;
 import edu.ncsu.csc411.ps04.environment.Status;
 
 public class StudentRobot extends Robot {
-	
-	private int bestMove;
+	/** the score of a win on the next move; later wins score slightly less */
+	private static final int WIN = 1000000;
+	private static final int INFINITY = Integer.MAX_VALUE;
+	/** the score of a line of four holding 0 to 4 of one player's pieces and none of the other's */
+	private static final int[] LINE_SCORES = {0, 0, 10, 1000, 1000};
+	/** scores at least this large are wins, stored in the table relative to the position */
+	private static final int WIN_BOUND = WIN - 1000;
+	/** the size of the transposition table created on first use */
+	private static final int DEFAULT_TABLE_MB = 8;
+
+	/** the number of plies getAction searches */
+	private int depth = 8;
+	/** the time getAction may spend searching, in milliseconds, or 0 to always search to depth */
+	private long timeBudget = 0;
+	/** the System.nanoTime at which a timed search stops, or 0 for no limit */
+	private long deadline;
+	/** set when the deadline passes; the search then unwinds without using partial results */
+	private boolean aborted;
+	/** the depth of the last completed iteration and the score of its best move */
+	private int completedDepth, rootScore;
+	/** whether the search uses alpha-beta pruning and move ordering */
+	private boolean pruning = true;
+	/** the number of positions examined by the most recent search */
+	private long nodes;
+	/** the columns in search order, built on first use */
+	private int[] centerOrder, columnOrder;
+	/** a bit mask for every line of four on the board, built on first use */
+	private long[] lines;
+	/** the transposition table, created on first use unless disabled */
+	private TranspositionTable table;
+	private boolean useTable = true;
+	/** the threads for parallel root searches, or null to search on one thread */
+	private ForkJoinPool pool;
+	/** the opening moves to play without searching, or null for none */
+	private OpeningBook book;
+	/** whether getAction still has to look for the default book, until setOpeningBook is called */
+	private boolean useDefaultBook = true;
 
 	public StudentRobot(Environment env) {
 		super(env);
 	}
 
+	/**
+	 * Creates a helper that searches one root move of a parallel search with the
+	 * parent's settings. Helpers share the parent's transposition table, so a
+	 * position one thread has searched is not searched again by another.
+	 * @param parent the robot running the parallel search
+	 */
+	private StudentRobot(StudentRobot parent) {
+		super(parent.env);
+		this.role = parent.role;
+		this.depth = parent.depth;
+		this.pruning = parent.pruning;
+		this.deadline = parent.deadline;
+		this.table = parent.table;
+		this.useTable = parent.useTable;
+	}
+
 	/**
 	 * Problem Set 04 - For this Problem Set you will design an agent that can play Connect Four. 
 	 * The goal of Connect Four is to "connect" four (4) markers of the same color (role) 
@@ -37,34 +93,497 @@ public class StudentRobot extends Robot {
 	 */
 	
 	/**
-	 * This method uses a minimax algorithm to evaluate the robot's best move
+	 * This method uses a negamax search with alpha-beta pruning to choose the robot's move
 	 * 
-	 * First checks if any move results in an opponent's win using evaluate board & blocks them
-	 * Otherwise, it uses minimax to evaluate the best move within a depth of 5
+	 * Positions in the opening book, the one at OpeningBook.DEFAULT_FILE unless another
+	 * was set, are answered from the book. Otherwise it
+	 * first plays any move that wins immediately, then blocks the opponent if they have
+	 * exactly one winning move. Otherwise it searches the bitboard one ply deeper at a time
+	 * (iterative deepening), trying the previous iteration's best move first and then the
+	 * center columns, since they take part in the most lines. The search stops at the
+	 * configured depth, or with a time budget set, when the time runs out.
 	 */
 	@Override
 	public int getAction() {
-	    bestMove = -1;
-	    int depth = 5;  
+	    Bitboard board = env.getBitboard();
+	    int player = Bitboard.playerOf(role);
+	    if (useDefaultBook) {
+	        book = OpeningBook.openDefault();
+	        useDefaultBook = false;
+	    }
+	    if (book != null) {
+	        int move = book.lookup(board, player);
+	        if (move >= 0 && board.canPlay(move)) {
+	            nodes = 0;
+	            completedDepth = 0;
+	            return move;
+	        }
+	    }
+	    return chooseMove(board, player);
+	}
 
-	    ArrayList<Integer> validMoves = env.getValidActions();
-	    Position[][] board = env.clonePositions();
+	/**
+	 * Chooses a move by the immediate win and block checks and the search, as getAction
+	 * does outside the opening book.
+	 * @param board the position, which is not modified
+	 * @param player the player to move
+	 * @return the chosen column, or -1 if the board is full
+	 */
+	int chooseMove(Bitboard board, int player) {
+	    int opponent = Bitboard.opponent(player);
+	    nodes = 0;
+	    completedDepth = 0;
 
-	    Status opponent = (role == Status.RED) ? Status.YELLOW : Status.RED;
-	    for (int col : validMoves) {
-	        Position[][] simulatedBoard = simulateMove(board, col, opponent);
-	        if (evaluateBoard(simulatedBoard) == -1000) {
-	            return col; 
+	    if (pruning) {
+	        for (int col : moveOrder(board)) {
+	            if (board.canPlay(col) && board.wouldWin(col, player)) {
+	                return col;
+	            }
+	        }
+	        int threat = -1, threats = 0;
+	        for (int col = 0; col < board.getCols(); col++) {
+	            if (board.canPlay(col) && board.wouldWin(col, opponent)) {
+	                threat = col;
+	                threats++;
+	            }
+	        }
+	        if (threats == 1) {
+	            return threat;
 	        }
 	    }
 
-	    minimax(board, depth, true);
-	    
-	    if (bestMove == -1 && !validMoves.isEmpty()) {
-            bestMove = validMoves.get(0);
-        }
+	    if (!pruning) {
+	        return searchRoot(board, player, depth, -1);
+	    }
+	    return iterativeDeepening(board, player);
+	}
+
+	/**
+	 * Sets the opening book getAction consults before searching, in place of the
+	 * one at OpeningBook.DEFAULT_FILE that it uses otherwise. Build one with
+	 * OpeningBook.main.
+	 * @param book the book to use, or null to always search
+	 */
+	public void setOpeningBook(OpeningBook book) {
+	    this.book = book;
+	    this.useDefaultBook = false;
+	}
+
+	/**
+	 * Sets how many moves ahead getAction searches.
+	 * @param depth the number of plies to search, at least 1
+	 */
+	public void setDepth(int depth) {
+	    this.depth = depth;
+	}
+
+	/**
+	 * Gives getAction a time budget per move instead of a fixed depth. The search
+	 * deepens until the budget is spent or the end of the game is in sight, and plays
+	 * the best move of the deepest search that finished. Only applies with pruning on.
+	 * @param millis the time to spend per move in milliseconds, or 0 to search to depth
+	 */
+	public void setTimeBudget(long millis) {
+	    this.timeBudget = millis;
+	}
+
+	/** @return the depth of the deepest search getAction finished on its last move */
+	public int getCompletedDepth() {
+	    return completedDepth;
+	}
 
-	    return bestMove;
+	/**
+	 * Turns alpha-beta pruning, move ordering and the immediate win and block checks
+	 * on or off. With pruning off the robot runs a plain minimax in column order,
+	 * which is useful for comparing node counts.
+	 * @param pruning true for alpha-beta search, false for plain minimax
+	 */
+	public void setPruning(boolean pruning) {
+	    this.pruning = pruning;
+	}
+
+	/**
+	 * Sets the transposition table the search uses, or turns it off. The scores
+	 * stored depend on this robot's evaluation and role, so a table should not be
+	 * shared between robots, though the threads of one robot's parallel search all
+	 * use it. By default an 8 MB table is created on first use.
+	 * @param table the table to use, or null to search without one
+	 */
+	public void setTranspositionTable(TranspositionTable table) {
+	    this.table = table;
+	    this.useTable = table != null;
+	}
+
+	/** @return the transposition table, or null if there is none */
+	public TranspositionTable getTranspositionTable() {
+	    return table;
+	}
+
+	/**
+	 * Sets how many threads the search uses. With more than one, the first root move
+	 * is searched alone to find a good bound and the remaining root moves are then
+	 * searched at the same time, each as a ForkJoin task. Tasks share the best score
+	 * found so far, so a task started later searches with a narrower window, and
+	 * the transposition table. Only applies with pruning on.
+	 * @param threads the number of threads; 1 or less searches on the calling thread
+	 */
+	public void setThreads(int threads) {
+	    if (pool != null) {
+	        pool.shutdown();
+	    }
+	    pool = threads > 1 ? new ForkJoinPool(threads) : null;
+	}
+
+	/** @return the number of threads the search uses */
+	public int getThreads() {
+	    return pool == null ? 1 : pool.getParallelism();
+	}
+
+	/** @return the number of positions examined by the most recent search */
+	public long getNodeCount() {
+	    return nodes;
+	}
+
+	/**
+	 * Searches to depth 1, 2, 3, ... and returns the best move of the deepest search
+	 * that finished. Each iteration is cheap next to the one after it, and its best
+	 * move, searched first, makes the next iteration's pruning far more effective.
+	 * @param board the current board
+	 * @param player the player to move
+	 * @return the best column, or -1 if the board is full
+	 */
+	private int iterativeDeepening(Bitboard board, int player) {
+	    int empty = board.getRows() * board.getCols() - board.getMoveCount();
+	    int maxDepth = timeBudget > 0 ? empty : Math.min(depth, empty);
+	    deadline = timeBudget > 0 ? System.nanoTime() + timeBudget * 1000000 : 0;
+	    aborted = false;
+	    long total = 0;
+	    int bestCol = -1;
+	    for (int d = 1; d <= maxDepth; d++) {
+	        int col = searchRoot(board, player, d, bestCol);
+	        total += nodes;
+	        if (aborted) {
+	            break;
+	        }
+	        bestCol = col;
+	        completedDepth = d;
+	        // A forced win or loss will not change with a deeper search
+	        if (Math.abs(rootScore) >= WIN_BOUND) {
+	            break;
+	        }
+	    }
+	    nodes = total;
+	    deadline = 0;
+	    if (bestCol < 0) {
+	        // Not even depth 1 finished; any legal move will do
+	        for (int col : moveOrder(board)) {
+	            if (board.canPlay(col)) {
+	                return col;
+	            }
+	        }
+	    }
+	    return bestCol;
+	}
+
+	/**
+	 * Finds the best move from the root. Ties go to the lowest column, as in a plain
+	 * minimax that tries the columns in order: a column left of the current best is
+	 * searched with a window one lower, so an equal score is recognized as a tie.
+	 * @param board the current board
+	 * @param player the player to move
+	 * @param depth the number of plies to search
+	 * @param firstCol the column to search first, or -1 for the usual order
+	 * @return the best column, or -1 if the board is full
+	 */
+	private int searchRoot(Bitboard board, int player, int depth, int firstCol) {
+	    int opponent = Bitboard.opponent(player);
+	    int best = -INFINITY;
+	    int bestCol = -1;
+	    nodes = 1;
+	    if (pruning && useTable) {
+	        if (table == null) {
+	            table = new TranspositionTable(DEFAULT_TABLE_MB);
+	        }
+	        table.newSearch();
+	    }
+	    int[] order = moveOrder(board);
+	    int[] cols = new int[order.length];
+	    int count = 0;
+	    if (firstCol >= 0 && board.canPlay(firstCol)) {
+	        cols[count++] = firstCol;
+	    }
+	    for (int col : order) {
+	        if (col != firstCol && board.canPlay(col)) {
+	            cols[count++] = col;
+	        }
+	    }
+
+	    int[] scores = new int[count];
+	    for (int i = 0; i < count; i++) {
+	        // The first move is searched alone so the parallel tasks start with its bound
+	        boolean parallel = i > 0 && pool != null && pruning;
+	        if (parallel && i == 1) {
+	            searchParallel(board, player, depth, cols, scores, i, count, best);
+	        } else if (!parallel) {
+	            int col = cols[i];
+	            int alpha = bestCol < 0 || !pruning ? -INFINITY : col < bestCol ? best - 1 : best;
+	            board.play(col, player);
+	            scores[i] = -negamax(board, opponent, depth - 1, -INFINITY, -alpha, 1);
+	            board.undo();
+	        }
+	        if (aborted) {
+	            return -1;
+	        }
+	        if (scores[i] > best || (scores[i] == best && cols[i] < bestCol)) {
+	            best = scores[i];
+	            bestCol = cols[i];
+	        }
+	    }
+	    rootScore = best;
+	    return bestCol;
+	}
+
+	/**
+	 * Searches root moves from to count - 1 at the same time and fills in their scores.
+	 * Every task searches with a window one below the best score known when it starts,
+	 * so a score that could tie or beat the best move is exact, while a lower score is
+	 * only an upper bound that cannot change the choice.
+	 * @param board the current board, which is not modified
+	 * @param player the player to move
+	 * @param depth the number of plies to search
+	 * @param cols the root moves in search order
+	 * @param scores the scores of the root moves, filled in from index from
+	 * @param from the first move to search
+	 * @param count the number of root moves
+	 * @param best the best score found before the parallel search
+	 */
+	private void searchParallel(Bitboard board, int player, int depth, int[] cols, int[] scores,
+	        int from, int count, int best) {
+	    int opponent = Bitboard.opponent(player);
+	    AtomicInteger shared = new AtomicInteger(best);
+	    List<ForkJoinTask<StudentRobot>> tasks = new ArrayList<>();
+	    for (int i = from; i < count; i++) {
+	        int col = cols[i];
+	        tasks.add(pool.submit(() -> {
+	            StudentRobot helper = new StudentRobot(this);
+	            Bitboard child = new Bitboard(board);
+	            child.play(col, player);
+	            int alpha = shared.get() - 1;
+	            helper.rootScore = -helper.negamax(child, opponent, depth - 1, -INFINITY, -alpha, 1);
+	            if (!helper.aborted) {
+	                shared.accumulateAndGet(helper.rootScore, Math::max);
+	            }
+	            return helper;
+	        }));
+	    }
+	    for (int i = from; i < count; i++) {
+	        StudentRobot helper = tasks.get(i - from).join();
+	        scores[i] = helper.rootScore;
+	        nodes += helper.nodes;
+	        aborted |= helper.aborted;
+	    }
+	}
+
+	/**
+	 * Negamax search: the score of a position for the player to move is the negated
+	 * score of the best reply. Moves are played and undone on the one board, so the
+	 * search allocates nothing per position. With pruning on, a branch is abandoned as
+	 * soon as it is known to be no better than a line already found (alpha-beta), and positions
+	 * reached again through a different move order are looked up in the
+	 * transposition table.
+	 * @param board the position to search
+	 * @param player the player to move
+	 * @param depth the number of plies left to search
+	 * @param alpha the score the player to move is already guaranteed
+	 * @param beta the score the opponent is already guaranteed, negated
+	 * @param ply the number of plies from the root
+	 * @return the position's score for the player to move
+	 */
+	private int negamax(Bitboard board, int player, int depth, int alpha, int beta, int ply) {
+	    nodes++;
+	    // Reading the clock is slow next to a node, so it is checked every 1024 nodes
+	    if (aborted || (deadline != 0 && (nodes & 1023) == 0 && System.nanoTime() > deadline)) {
+	        aborted = true;
+	        return 0;
+	    }
+	    int opponent = Bitboard.opponent(player);
+	    // Faster wins and slower losses score better
+	    if (board.isWin(opponent)) {
+	        return -(WIN - ply);
+	    }
+	    if (depth == 0 || board.isFull()) {
+	        int score = evaluateBoard(board, rootPlayer(player, ply));
+	        return ply % 2 == 0 ? score : -score;
+	    }
+	    if (pruning) {
+	        for (int col = 0; col < board.getCols(); col++) {
+	            if (board.canPlay(col) && board.wouldWin(col, player)) {
+	                return WIN - ply - 1;
+	            }
+	        }
+	    }
+
+	    TranspositionTable tt = pruning ? table : null;
+	    long key = 0;
+	    int ttMove = -1;
+	    int alphaOrig = alpha;
+	    if (tt != null) {
+	        key = board.getKey(player);
+	        long entry = tt.probe(key);
+	        if (entry != 0) {
+	            ttMove = TranspositionTable.getMove(entry);
+	            if (TranspositionTable.getDepth(entry) >= depth) {
+	                int score = fromTable(TranspositionTable.getScore(entry), ply);
+	                int bound = TranspositionTable.getBound(entry);
+	                if (bound == TranspositionTable.EXACT) {
+	                    return score;
+	                } else if (bound == TranspositionTable.LOWER) {
+	                    alpha = Math.max(alpha, score);
+	                } else {
+	                    beta = Math.min(beta, score);
+	                }
+	                if (alpha >= beta) {
+	                    return score;
+	                }
+	            }
+	        }
+	    }
+
+	    int best = -INFINITY;
+	    int bestCol = -1;
+	    int[] order = moveOrder(board);
+	    // The table's best move is searched first, then the rest in the usual order
+	    for (int i = ttMove >= 0 ? -1 : 0; i < order.length; i++) {
+	        int col = i < 0 ? ttMove : order[i];
+	        if ((i >= 0 && col == ttMove) || !board.canPlay(col)) {
+	            continue;
+	        }
+	        board.play(col, player);
+	        int score = -negamax(board, opponent, depth - 1, -beta, -alpha, ply + 1);
+	        board.undo();
+	        if (aborted) {
+	            return 0;
+	        }
+	        if (score > best) {
+	            best = score;
+	            bestCol = col;
+	        }
+	        if (pruning) {
+	            alpha = Math.max(alpha, best);
+	            if (alpha >= beta) {
+	                break;
+	            }
+	        }
+	    }
+
+	    if (tt != null) {
+	        int bound = best <= alphaOrig ? TranspositionTable.UPPER
+	                : best >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+	        tt.store(key, depth, bound, toTable(best, ply), bestCol);
+	    }
+	    return best;
+	}
+
+	/**
+	 * Win scores count plies from the root, but a stored position can be reached at
+	 * another ply in a later search, so the table keeps them relative to the position.
+	 */
+	private static int toTable(int score, int ply) {
+	    if (score >= WIN_BOUND) {
+	        return score + ply;
+	    } else if (score <= -WIN_BOUND) {
+	        return score - ply;
+	    }
+	    return score;
+	}
+
+	/** Reverses toTable for a position ply plies from the root. */
+	private static int fromTable(int score, int ply) {
+	    if (score >= WIN_BOUND) {
+	        return score - ply;
+	    } else if (score <= -WIN_BOUND) {
+	        return score + ply;
+	    }
+	    return score;
+	}
+
+	/** @return the player who moved at the root, given the player to move ply plies later */
+	private static int rootPlayer(int player, int ply) {
+	    return ply % 2 == 0 ? player : Bitboard.opponent(player);
+	}
+
+	/**
+	 * @return the columns in search order: center first with pruning on, since center
+	 * moves cause the most cutoffs, or left to right with pruning off
+	 */
+	private int[] moveOrder(Bitboard board) {
+	    int cols = board.getCols();
+	    if (centerOrder == null || centerOrder.length != cols) {
+	        centerOrder = new int[cols];
+	        columnOrder = new int[cols];
+	        for (int i = 0; i < cols; i++) {
+	            // cols / 2, then alternately one further left and one further right
+	            centerOrder[i] = cols / 2 + (i % 2 == 0 ? i / 2 : -(i + 1) / 2);
+	            columnOrder[i] = i;
+	        }
+	    }
+	    return pruning ? centerOrder : columnOrder;
+	}
+
+	/**
+	 * Scores a bitboard for player with the same rules as evaluateBoard: every line
+	 * of four holding no opposing piece is worth 10 with two of the player's pieces
+	 * and 1000 with three or four, and an opponent line worth 1000 makes the score -1000.
+	 * @param board the board to evaluate
+	 * @param player the player to score for
+	 * @return the priority score
+	 */
+	private int evaluateBoard(Bitboard board, int player) {
+	    if (lines == null) {
+	        lines = buildLines(board.getRows(), board.getCols());
+	    }
+	    long mine = board.getPieces(player);
+	    long theirs = board.getPieces(Bitboard.opponent(player));
+	    int score = 0;
+	    int threat = 0;
+	    for (long line : lines) {
+	        if ((line & theirs) == 0) {
+	            score += LINE_SCORES[Long.bitCount(line & mine)];
+	        } else if ((line & mine) == 0) {
+	            threat += LINE_SCORES[Long.bitCount(line & theirs)];
+	        }
+	    }
+	    if (threat >= 1000) {
+	        return -1000;
+	    }
+	    return score - threat;
+	}
+
+	/** @return a bit mask for every horizontal, vertical, and diagonal line of four */
+	private static long[] buildLines(int rows, int cols) {
+	    int height = rows + 1;
+	    ArrayList<Long> masks = new ArrayList<>();
+	    int[][] directions = {{0, 1}, {1, 0}, {1, 1}, {-1, 1}};
+	    for (int col = 0; col < cols; col++) {
+	        for (int row = 0; row < rows; row++) {
+	            for (int[] d : directions) {
+	                int endRow = row + 3 * d[0], endCol = col + 3 * d[1];
+	                if (endRow < 0 || endRow >= rows || endCol >= cols) {
+	                    continue;
+	                }
+	                long mask = 0;
+	                for (int i = 0; i < 4; i++) {
+	                    mask |= 1L << ((col + i * d[1]) * height + row + i * d[0]);
+	                }
+	                masks.add(mask);
+	            }
+	        }
+	    }
+	    long[] lines = new long[masks.size()];
+	    for (int i = 0; i < lines.length; i++) {
+	        lines[i] = masks.get(i);
+	    }
+	    return lines;
 	}
 
 	/**
@@ -86,53 +605,6 @@ public class StudentRobot extends Robot {
         return newBoard;
     }
 	
-	/**
-	 * Minimax algorithm that determines what the final evaluated score is by using maximizing and
-	 * minimizing levels to find the optimal move
-	 * Uses recursion to traverse levels of depth
-	 * @param board the board to evaluate
-	 * @param depth the maximum depth
-	 * @param isMaximizing whether the level is maximizing or minimizing
-	 * @return the optimal score
-	 */
-	private int minimax(Position[][] board, int depth, boolean isMaximizing) {
-		Status winner = env.getGameStatus();
-
-        if (winner == role) return 1000;
-        if (winner == Status.RED_WIN || winner == Status.YELLOW_WIN) return -1000; 
-        if (winner == Status.DRAW || depth == 0) return evaluateBoard(board);
-
-        ArrayList<Integer> validMoves = env.getValidActions();
-
-        if (validMoves.isEmpty()) {
-            return evaluateBoard(board);
-        }
-
-        if (isMaximizing) {
-            int maxScore = Integer.MIN_VALUE;
-            for (int col : validMoves) {
-                Position[][] newBoard = perceive(col, board, role);
-                int score = minimax(newBoard, depth - 1, false);
-                if (score > maxScore) {
-                    maxScore = score;
-                    bestMove = col; 
-                }
-            }
-            return maxScore;
-        } else {
-            int minScore = Integer.MAX_VALUE;
-            Status opponent = (role == Status.RED) ? Status.YELLOW : Status.RED;
-            for (int col : validMoves) {
-                Position[][] newBoard = perceive(col, board, opponent);
-                int score = minimax(newBoard, depth - 1, true);
-                if (score < minScore) {
-                    minScore = score;
-                }
-            }
-            return minScore;
-        }
-	}
-	
 	/**
 	 * Helper method that evaluates the board to determine next move
 	 * @param board the board to evaluate
@@ -0,0 +1,200 @@
+package edu.ncsu.csc411.ps04.agent;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size transposition table for game tree search. Connect Four
+ * reaches the same position through many move orders; the table remembers
+ * what a search learned about each position so later visits can reuse it.
+ *
+ * Positions are identified by a 64-bit key such as Bitboard.getKey, which
+ * is exact for the standard board. The key picks a slot by multiplicative
+ * hashing and is stored in full, so a slot holding a different position is
+ * detected (a collision) rather than misread. Each entry keeps the search
+ * depth, the bound type, the score, and the best move found, packed into one
+ * long that probe returns and the static getters unpack.
+ *
+ * Any number of threads may probe and store at once without locks. Every
+ * slot is two longs in one flat array: the entry and the key XORed with the
+ * entry. If two threads write a slot at once, a reader can see one thread's
+ * entry with the other's check word, but then the XOR no longer gives the
+ * key, so the mixed entry is rejected as a miss instead of being used. Such
+ * torn reads are counted apart from collisions using a few bits of the key
+ * kept in the entry.
+ *
+ * When two positions share a slot, the new entry replaces the old one if
+ * the old one is from an earlier search or was searched no deeper; deeper
+ * results from the current search are kept because they save the most work.
+ */
+public class TranspositionTable {
+	/** the score is exact */
+	public static final int EXACT = 0;
+	/** the score is a lower bound: the search failed high */
+	public static final int LOWER = 1;
+	/** the score is an upper bound: the search failed low */
+	public static final int UPPER = 2;
+
+	/** each entry is one check word and one packed data word */
+	private static final int BYTES_PER_ENTRY = 2 * Long.BYTES;
+	/** set in every stored entry, so an entry is never 0 */
+	private static final long PRESENT = 1L << 63;
+
+	/**
+	 * Slot i is the check word key ^ entry at 2i and the entry at 2i + 1. The entry
+	 * holds the score in bits 0-31, depth 32-39, bound 40-41, move + 1 42-49,
+	 * age 50-57, key check bits 58-62, and PRESENT.
+	 */
+	private final long[] slots;
+	private final int shift;
+	/** the search generation, used to replace entries left over from earlier moves */
+	private volatile int age;
+
+	private final LongAdder probes = new LongAdder();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder collisions = new LongAdder();
+	private final LongAdder tornReads = new LongAdder();
+	private final LongAdder stores = new LongAdder();
+
+	/**
+	 * Creates an empty table.
+	 * @param megabytes the memory to use; the entry count is rounded down to a power of two
+	 * @throws IllegalArgumentException if megabytes is less than 1
+	 */
+	public TranspositionTable(int megabytes) {
+		if (megabytes < 1) {
+			throw new IllegalArgumentException("Transposition table needs at least 1 MB - " + megabytes);
+		}
+		long entries = Long.highestOneBit((long) megabytes * 1024 * 1024 / BYTES_PER_ENTRY);
+		entries = Math.min(entries, 1 << 29);
+		this.slots = new long[(int) (2 * entries)];
+		this.shift = Long.SIZE - Long.numberOfTrailingZeros(entries);
+	}
+
+	/**
+	 * Looks up a position.
+	 * @param key the position's key
+	 * @return the position's entry for use with the static getters, or 0 if it is not stored
+	 */
+	public long probe(long key) {
+		probes.increment();
+		int index = 2 * slot(key);
+		long check = slots[index];
+		long entry = slots[index + 1];
+		if (entry != 0 && (check ^ entry) == key) {
+			hits.increment();
+			return entry;
+		}
+		misses.increment();
+		if (entry != 0) {
+			// A whole entry for another key still carries that key's check bits
+			if (checkBits(check ^ entry) == (int) (entry >>> 58 & 0x1F)) {
+				collisions.increment();
+			} else {
+				tornReads.increment();
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Records the result of searching a position.
+	 * @param key the position's key
+	 * @param depth the number of plies searched below the position
+	 * @param bound EXACT, LOWER, or UPPER
+	 * @param score the score found
+	 * @param move the best move found, or -1 if none
+	 */
+	public void store(long key, int depth, int bound, int score, int move) {
+		int index = 2 * slot(key);
+		int age = this.age & 0xFF;
+		long old = slots[index + 1];
+		if (old != 0 && (slots[index] ^ old) != key && getAge(old) == age && getDepth(old) > depth) {
+			return;
+		}
+		stores.increment();
+		long entry = PRESENT
+				| (score & 0xFFFFFFFFL)
+				| (long) (depth & 0xFF) << 32
+				| (long) bound << 40
+				| (long) ((move + 1) & 0xFF) << 42
+				| (long) age << 50
+				| (long) checkBits(key) << 58;
+		slots[index] = key ^ entry;
+		slots[index + 1] = entry;
+	}
+
+	/** @return the score of an entry returned by probe */
+	public static int getScore(long entry) {
+		return (int) entry;
+	}
+
+	/** @return the depth of an entry returned by probe */
+	public static int getDepth(long entry) {
+		return (int) (entry >>> 32) & 0xFF;
+	}
+
+	/** @return the bound type of an entry returned by probe */
+	public static int getBound(long entry) {
+		return (int) (entry >>> 40) & 0x3;
+	}
+
+	/** @return the best move of an entry returned by probe, or -1 if none */
+	public static int getMove(long entry) {
+		return ((int) (entry >>> 42) & 0xFF) - 1;
+	}
+
+	/**
+	 * Starts a new search. Entries from earlier searches stay usable but are
+	 * replaced first. Call this between searches, not while threads are storing.
+	 */
+	public void newSearch() {
+		age++;
+	}
+
+	/** Empties the table and resets the counters. Call this between searches. */
+	public void clear() {
+		Arrays.fill(slots, 0);
+		resetCounters();
+	}
+
+	/** Resets the probe, hit, miss, collision, torn read, and store counters. */
+	public void resetCounters() {
+		probes.reset();
+		hits.reset();
+		misses.reset();
+		collisions.reset();
+		tornReads.reset();
+		stores.reset();
+	}
+
+	/** @return the number of entries the table holds */
+	public int getCapacity() { return slots.length / 2; }
+	/** @return the number of lookups */
+	public long getProbes() { return probes.sum(); }
+	/** @return the number of lookups that found their position */
+	public long getHits() { return hits.sum(); }
+	/** @return the number of lookups that did not find their position */
+	public long getMisses() { return misses.sum(); }
+	/** @return the number of misses whose slot held a different position */
+	public long getCollisions() { return collisions.sum(); }
+	/** @return the number of misses whose slot was being written by another thread */
+	public long getTornReads() { return tornReads.sum(); }
+	/** @return the number of entries written */
+	public long getStores() { return stores.sum(); }
+
+	private static int getAge(long entry) {
+		return (int) (entry >>> 50) & 0xFF;
+	}
+
+	/** @return five bits mixed from a key, stored to tell collisions from torn reads */
+	private static int checkBits(long key) {
+		return (int) (key ^ key >>> 29) & 0x1F;
+	}
+
+	/** Fibonacci hashing: the top bits of key times 2^64 / phi. */
+	private int slot(long key) {
+		return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+	}
+}
@@ -0,0 +1,238 @@
+package edu.ncsu.csc411.ps04.environment;
+
+/**
+ * A Connect Four board stored as one bit mask per player. Each column
+ * takes rows + 1 bits, lowest row first, and the extra bit at the top of
+ * every column stays empty so that pieces in different columns never line
+ * up across a column boundary. For the standard 6x7 board this uses 49 of
+ * the 64 bits in a long.
+ *
+ * With this layout a move is one OR, and four in a row in any direction is
+ * found with two shifts and two ANDs per direction, so search agents can
+ * examine millions of positions per move. Rows in the methods below are
+ * numbered like the Environment's Position array, with row 0 at the top.
+ *
+ * The board keeps a stack of the columns played, so a search can play a
+ * move, search below it, and undo it on the same board instead of copying
+ * the board at every node.
+ */
+public class Bitboard {
+	/** player indices, in the order the players move */
+	public static final int YELLOW = 0;
+	public static final int RED = 1;
+
+	private final int rows;
+	private final int cols;
+	/** the bits per column, rows + 1 */
+	private final int height;
+	/** the pieces of each player, indexed by YELLOW and RED */
+	private final long[] pieces = new long[2];
+	/** the number of pieces in each column */
+	private final int[] heights;
+	/** the total number of pieces on the board */
+	private int moves;
+	/** the column of every move so far, in the order played */
+	private final int[] history;
+
+	/**
+	 * Creates an empty board.
+	 * @param rows the number of rows
+	 * @param cols the number of columns
+	 * @throws IllegalArgumentException if the board does not fit in a long
+	 */
+	public Bitboard(int rows, int cols) {
+		if (rows < 1 || cols < 1 || (rows + 1) * cols > Long.SIZE) {
+			throw new IllegalArgumentException("Board does not fit in a bitboard - " + rows + "x" + cols);
+		}
+		this.rows = rows;
+		this.cols = cols;
+		this.height = rows + 1;
+		this.heights = new int[cols];
+		this.history = new int[rows * cols];
+	}
+
+	/**
+	 * Creates a copy of another board.
+	 * @param other the board to copy
+	 */
+	public Bitboard(Bitboard other) {
+		this.rows = other.rows;
+		this.cols = other.cols;
+		this.height = other.height;
+		this.pieces[YELLOW] = other.pieces[YELLOW];
+		this.pieces[RED] = other.pieces[RED];
+		this.heights = other.heights.clone();
+		this.moves = other.moves;
+		this.history = other.history.clone();
+	}
+
+	/**
+	 * @param col the column to check
+	 * @return true if col is on the board and has an empty space
+	 */
+	public boolean canPlay(int col) {
+		return col >= 0 && col < cols && heights[col] < rows;
+	}
+
+	/**
+	 * Drops a piece into a column. The caller must check canPlay first. Only the
+	 * player who moved can have won, so the new status takes one check rather than
+	 * a check of the whole board, assuming the game was ONGOING before the move.
+	 * @param col the column to play
+	 * @param player YELLOW or RED
+	 * @return the game status after the move
+	 */
+	public Status play(int col, int player) {
+		pieces[player] |= 1L << (col * height + heights[col]);
+		heights[col]++;
+		history[moves++] = col;
+		if (hasFour(pieces[player], height)) {
+			return player == YELLOW ? Status.YELLOW_WIN : Status.RED_WIN;
+		}
+		return isFull() ? Status.DRAW : Status.ONGOING;
+	}
+
+	/**
+	 * Takes back the most recent move.
+	 * @throws IllegalStateException if the board is empty
+	 */
+	public void undo() {
+		if (moves == 0) {
+			throw new IllegalStateException("No move to undo");
+		}
+		int col = history[--moves];
+		heights[col]--;
+		long bit = 1L << (col * height + heights[col]);
+		pieces[YELLOW] &= ~bit;
+		pieces[RED] &= ~bit;
+	}
+
+	/** @return the column of the most recent move, or -1 if the board is empty */
+	public int getLastMove() {
+		return moves == 0 ? -1 : history[moves - 1];
+	}
+
+	/**
+	 * @param player YELLOW or RED
+	 * @return true if the player has four pieces in a row
+	 */
+	public boolean isWin(int player) {
+		return hasFour(pieces[player], height);
+	}
+
+	/**
+	 * Checks whether a move would win without playing it.
+	 * @param col a column for which canPlay is true
+	 * @param player YELLOW or RED
+	 * @return true if dropping the player's piece into col makes four in a row
+	 */
+	public boolean wouldWin(int col, int player) {
+		return hasFour(pieces[player] | 1L << (col * height + heights[col]), height);
+	}
+
+	/** @return true if every column is full */
+	public boolean isFull() {
+		return moves == rows * cols;
+	}
+
+	/**
+	 * @return RED_WIN, YELLOW_WIN, DRAW, or ONGOING
+	 */
+	public Status getGameStatus() {
+		if (isWin(YELLOW)) {
+			return Status.YELLOW_WIN;
+		} else if (isWin(RED)) {
+			return Status.RED_WIN;
+		} else if (isFull()) {
+			return Status.DRAW;
+		}
+		return Status.ONGOING;
+	}
+
+	/**
+	 * @param row the row, with row 0 at the top
+	 * @param col the column
+	 * @return BLANK, RED, or YELLOW
+	 */
+	public Status getStatus(int row, int col) {
+		long bit = 1L << (col * height + rows - 1 - row);
+		if ((pieces[YELLOW] & bit) != 0) {
+			return Status.YELLOW;
+		} else if ((pieces[RED] & bit) != 0) {
+			return Status.RED;
+		}
+		return Status.BLANK;
+	}
+
+	/**
+	 * @param player YELLOW or RED
+	 * @return the player's pieces; bit col * (rows + 1) + r is the piece r rows above the bottom
+	 */
+	public long getPieces(int player) {
+		return pieces[player];
+	}
+
+	/** @return every occupied space */
+	public long getMask() {
+		return pieces[YELLOW] | pieces[RED];
+	}
+
+	/**
+	 * Returns a key that identifies the position for transposition tables. Adding
+	 * the occupied mask to the player's pieces sets one bit above the top piece of
+	 * every column and clears the bits of that player's pieces, so the key is unique
+	 * among positions with player to move, assuming the players alternate.
+	 * @param player the player to move, YELLOW or RED
+	 * @return the position's key, which is 0 only for the empty board
+	 */
+	public long getKey(int player) {
+		return pieces[player] + getMask();
+	}
+
+	/**
+	 * @param col the column
+	 * @return the number of pieces in the column
+	 */
+	public int getHeight(int col) {
+		return heights[col];
+	}
+
+	/** @return the total number of pieces on the board */
+	public int getMoveCount() {
+		return moves;
+	}
+
+	public int getRows() { return this.rows; }
+	public int getCols() { return this.cols; }
+
+	/**
+	 * @param player YELLOW or RED
+	 * @return the other player
+	 */
+	public static int opponent(int player) {
+		return 1 - player;
+	}
+
+	/**
+	 * @param role Status.YELLOW or Status.RED
+	 * @return the matching player index
+	 */
+	public static int playerOf(Status role) {
+		return role == Status.YELLOW ? YELLOW : RED;
+	}
+
+	/**
+	 * Checks a bit mask for four in a row: vertically (shift 1), horizontally
+	 * (shift height), and along both diagonals (shifts height - 1 and height + 1).
+	 */
+	static boolean hasFour(long bits, int height) {
+		long pairs = bits & (bits >>> 1);
+		if ((pairs & (pairs >>> 2)) != 0) return true;
+		pairs = bits & (bits >>> height);
+		if ((pairs & (pairs >>> 2 * height)) != 0) return true;
+		pairs = bits & (bits >>> (height - 1));
+		if ((pairs & (pairs >>> 2 * (height - 1))) != 0) return true;
+		pairs = bits & (bits >>> (height + 1));
+		return (pairs & (pairs >>> 2 * (height + 1))) != 0;
+	}
+}
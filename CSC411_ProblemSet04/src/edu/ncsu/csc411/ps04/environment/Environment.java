@@ -1,7 +1,6 @@
 package edu.ncsu.csc411.ps04.environment;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 
 import edu.ncsu.csc411.ps04.agent.Robot;
 
@@ -11,7 +10,9 @@ import edu.ncsu.csc411.ps04.agent.Robot;
  * @author Adam Gaweda
  */
 public class Environment {
-	private Position[][] positions;
+	private Bitboard board;
+	/** the status after the most recent move, so status checks need not examine the board */
+	private Status status;
 	private Robot redPlayer, yellowPlayer;
 	private int rows, cols;
 	private int turn;
@@ -21,14 +22,8 @@ public class Environment {
 	public Environment(int rows, int columns) {
 		this.rows = rows;
 		this.cols = columns;
-		this.positions = new Position[this.rows][this.cols];
-		for(int row = 0; row < rows; row++) {
-			for (int col = 0; col < cols; col++) {
-				// Create a new position at (row, col)
-				Position p = new Position(row, col, Status.BLANK);
-				this.positions[row][col] = p;
-			}
-		}
+		this.board = new Bitboard(rows, columns);
+		this.status = Status.ONGOING;
 		this.turn = 0;
 	}
 	
@@ -36,7 +31,7 @@ public class Environment {
 	public ArrayList<Integer> getValidActions() {
 		ArrayList<Integer> actions = new ArrayList<Integer>();
 		for(int col = 0; col < cols; col++) {
-			if (this.positions[0][col].getStatus() == Status.BLANK) {
+			if (this.board.canPlay(col)) {
 					actions.add(col);
 			}
 		}
@@ -49,109 +44,28 @@ public class Environment {
 		return (status == Status.DRAW || status == Status.RED_WIN || status == Status.YELLOW_WIN);
 	}
 	
-	/** Runs through each tile and checks to see if it has winning connection. */
-	public Status getGameStatus() {
-		// Iterate through each tile, checking if there are 4 adjacent tiles that
-		// are the same
-		for(int row = 0; row < rows; row++) {
-			for(int col = 0; col < cols; col++) {
-				Status status = this.positions[row][col].getStatus();
-				if (status == Status.BLANK)
-					continue;
-				boolean horizontal = checkHorizontal(row, col);
-				boolean vertical = checkVertical(row, col);
-				boolean diagonalBR = checkDiagonalBottomRight(row, col);
-				boolean diagonalTR = checkDiagonalTopRight(row, col);
-				if (horizontal || vertical || diagonalBR || diagonalTR) {
-					if(status == Status.RED) {
-						return Status.RED_WIN;
-					} else {
-						return Status.YELLOW_WIN;
-					}
-				}
-			}
-		}
-		
-		// Check for Blank Tiles
-		boolean blankTileCheck = false;
-		for(int row = 0; row < rows; row++) {
-			for (int col = 0; col < cols; col++) {
-				if (this.positions[row][col].getStatus() == Status.BLANK) {
-					blankTileCheck = true;
-				}
-			}
-		}
-		
-		// If there are no BLANK spaces left and no 4 connection, the game is
-		// a DRAW. Otherwise, the game is still ONGOING.
-		if (blankTileCheck)
-			return Status.ONGOING;
-		else
-			return Status.DRAW;
-	}
-	
-	/** 
-	 * Looks 4 tiles to the right to see if there are 4 adjacent tiles with
-	 * the same color
+	/**
+	 * Returns the status found when the last piece was dropped. A new win must
+	 * include the piece just dropped, so only the mover's pieces are checked then,
+	 * and the bitboard's piece count detects a full board.
 	 */
-	private boolean checkHorizontal(int row, int col) {
-		Status status = this.positions[row][col].getStatus();
-		if (col+4 > cols) return false; //out of bounds
-		for (int i = 0; i < 4; i++) {
-			if(status != this.positions[row][col+i].getStatus())
-				return false;
-		}
-		return true;
-	}
-	
-	/** 
-	 * Looks 4 tiles downward to see if there are 4 adjacent tiles with
-	 * the same color
-	 */
-	private boolean checkVertical(int row, int col) {
-		Status status = this.positions[row][col].getStatus();
-		if (row+4 > rows) return false; //out of bounds
-		for (int i = 0; i < 4; i++) {
-			if(status != this.positions[row+i][col].getStatus())
-				return false;
-		}
-		return true;
-	}
-	
-	/** 
-	 * Looks 4 tiles to the bottom-right to see if there are 4 adjacent tiles with
-	 * the same color
-	 */
-	private boolean checkDiagonalBottomRight(int row, int col) {
-		Status status = this.positions[row][col].getStatus();
-		if (row+4 > rows) return false; //out of bounds
-		if (col+4 > cols) return false; //out of bounds
-		for (int i = 0; i < 4; i++) {
-			if(status != this.positions[row+i][col+i].getStatus())
-				return false;
-		}
-		return true;
-	}
-	
-	/** 
-	 * Looks 4 tiles to the top-right to see if there are 4 adjacent tiles with
-	 * the same color
-	 */
-	private boolean checkDiagonalTopRight(int row, int col) {
-		Status status = this.positions[row][col].getStatus();
-		if (row-3 < 0) return false; //out of bounds
-		if (col+4 > cols) return false; //out of bounds
-		for (int i = 0; i < 4; i++) {
-			if(status != this.positions[row-i][col+i].getStatus())
-				return false;
-		}
-		return true;
+	public Status getGameStatus() {
+		return this.status;
 	}
 	
 	/** Traditional Getters */
 	public int getRows() { return this.rows; }
 	public int getCols() { return this.cols; }
 	
+	/**
+	 * Returns a copy of the board as a Bitboard. Search agents can play moves on
+	 * the copy far faster than on the Position[][] from clonePositions, without
+	 * changing the current status of the game.
+	 */
+	public Bitboard getBitboard() {
+		return new Bitboard(this.board);
+	}
+	
 	/** 
 	 * Gets the new state of the world after robot actions. The Environment increments the turn
 	 * variable to determine whose move it is (even turns = YELLOW, odd turns = RED).
@@ -195,26 +109,12 @@ public class Environment {
 		else if (col < 0 || col > this.cols-1)
 			return false;
 		
-		Position position = this.positions[row][col];
-		if (position.getStatus() != Status.BLANK)
-			return false;
-		
-		return true;
+		return this.board.getStatus(row, col) == Status.BLANK;
 	}
 	
 	/** "Drops" the player's marker to the next available spot in the column */
 	private void drop(int col, Status role) {
-		Status status = Status.RED;
-		if (role == Status.YELLOW) {
-			status = Status.YELLOW;
-		}
-		for(int row = 0; row < rows; row++) {
-			if (this.positions[row][col].getStatus() != Status.BLANK) {
-				this.positions[row-1][col].setStatus(status);
-				return;
-			}
-		}
-		this.positions[rows-1][col].setStatus(status);	
+		this.status = this.board.play(col, Bitboard.playerOf(role));
 	}
 	
 	/** Adds a player to the game and sets its role (YELLOW or RED) */
@@ -241,12 +141,7 @@ public class Environment {
 		for (int row = 0; row < this.rows; row++) {
 			for (int col = 0; col < this.cols; col++) {
 				// Update the square to either blank, red, or yellow
-				if (this.positions[row][col].getStatus() == Status.BLANK)
-					clone[row][col] = new Position(row, col, Status.BLANK);
-				else if (this.positions[row][col].getStatus() == Status.RED)
-					clone[row][col] = new Position(row, col, Status.RED);
-				else if (this.positions[row][col].getStatus() == Status.YELLOW)
-					clone[row][col] = new Position(row, col, Status.YELLOW);
+				clone[row][col] = new Position(row, col, this.board.getStatus(row, col));
 			}
 		}
 		return clone;
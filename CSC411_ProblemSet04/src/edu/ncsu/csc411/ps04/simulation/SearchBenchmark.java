@@ -0,0 +1,180 @@
+package edu.ncsu.csc411.ps04.simulation;
+
+import edu.ncsu.csc411.ps04.agent.Robot;
+import edu.ncsu.csc411.ps04.agent.StudentRobot;
+import edu.ncsu.csc411.ps04.agent.TranspositionTable;
+import edu.ncsu.csc411.ps04.agent.examples.GreedyRobot;
+import edu.ncsu.csc411.ps04.environment.Environment;
+import edu.ncsu.csc411.ps04.environment.Status;
+
+/**
+ * Compares StudentRobot's alpha-beta search, with and without its
+ * transposition table, against a plain minimax at increasing depths. For
+ * every depth it plays one game as YELLOW against GreedyRobot and reports
+ * the positions examined per move, the time per move, the result, and for
+ * the table its hit and collision rates. Plain minimax grows about sevenfold
+ * per ply, so it is only run to a smaller depth.
+ *
+ * It then plays one game for each of several time budgets and reports the
+ * average and deepest depth the iterative deepening search finished, the
+ * average and slowest time per move, and the result.
+ *
+ * Finally it measures the parallel search: in every position of one game it
+ * times a fixed-depth search on one thread and on one thread per core (at
+ * least two), and reports the speedup, whether both chose the same move, and
+ * how many reads of the shared transposition table were torn by another thread.
+ *
+ * Every robot measured here searches from the first move, without an opening
+ * book, so that book moves do not show up as moves that examined no positions.
+ */
+public class SearchBenchmark {
+	private static final int MAX_DEPTH = 10;
+	private static final int MAX_PLAIN_DEPTH = 6;
+
+	private static final int TABLE_MB = 8;
+	private static final long[] BUDGETS = {1, 10, 50, 200};
+	private static final int[] PARALLEL_DEPTHS = {8, 10};
+
+	public static void main(String[] args) {
+		System.out.printf("%-6s %-12s %12s %10s %8s %8s %8s%n", "depth", "search", "nodes/move", "ms/move", "result",
+				"hits", "collide");
+		for (int depth = 1; depth <= MAX_DEPTH; depth++) {
+			if (depth <= MAX_PLAIN_DEPTH) {
+				benchmark(depth, false, false);
+			}
+			benchmark(depth, true, false);
+			benchmark(depth, true, true);
+		}
+
+		System.out.println();
+		System.out.printf("%-10s %10s %10s %10s %10s %8s%n", "budget ms", "avg depth", "max depth", "ms/move",
+				"max ms", "result");
+		for (long budget : BUDGETS) {
+			benchmarkBudget(budget);
+		}
+
+		int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+		System.out.println();
+		System.out.printf("%-6s %-8s %12s %12s %10s %10s %8s %10s %8s%n", "depth", "threads", "nodes 1", "nodes n",
+				"ms 1", "ms n", "speedup", "same move", "torn");
+		for (int depth : PARALLEL_DEPTHS) {
+			benchmarkParallel(depth, threads);
+		}
+	}
+
+	/**
+	 * Plays one game as YELLOW against GreedyRobot with the parallel search, timing
+	 * a single-threaded search of every YELLOW position as well, and prints the totals.
+	 */
+	private static void benchmarkParallel(int depth, int threads) {
+		Environment env = new Environment();
+		StudentRobot single = new StudentRobot(env);
+		single.setDepth(depth);
+		single.setOpeningBook(null);
+		single.setRole(Status.YELLOW);
+		StudentRobot parallel = new StudentRobot(env);
+		parallel.setDepth(depth);
+		parallel.setThreads(threads);
+		parallel.setOpeningBook(null);
+		parallel.setRole(Status.YELLOW);
+		// Plays the parallel search's move, so each position is only searched once per mode
+		int[] next = new int[1];
+		env.addPlayer(new Robot(env) {
+			@Override
+			public int getAction() {
+				return next[0];
+			}
+		}, Status.YELLOW);
+		env.addPlayer(new GreedyRobot(env), Status.RED);
+
+		long singleNanos = 0, parallelNanos = 0, singleNodes = 0, parallelNodes = 0;
+		int moves = 0, same = 0;
+		for (int turn = 0; !env.hasGameTerminated(); turn++) {
+			if (turn % 2 == 0) {
+				long start = System.nanoTime();
+				int singleMove = single.getAction();
+				singleNanos += System.nanoTime() - start;
+				singleNodes += single.getNodeCount();
+
+				start = System.nanoTime();
+				int parallelMove = parallel.getAction();
+				next[0] = parallelMove;
+				parallelNanos += System.nanoTime() - start;
+				parallelNodes += parallel.getNodeCount();
+				if (singleMove == parallelMove) {
+					same++;
+				}
+				moves++;
+			}
+			env.updateEnvironment();
+		}
+		parallel.setThreads(1);
+		System.out.printf("%-6d %-8d %12d %12d %10.3f %10.3f %8.2f %10s %8d%n", depth, threads, singleNodes / moves,
+				parallelNodes / moves, singleNanos / 1e6 / moves, parallelNanos / 1e6 / moves,
+				(double) singleNanos / parallelNanos, same + "/" + moves,
+				parallel.getTranspositionTable().getTornReads());
+	}
+
+	/** Plays one game with the given time budget per move and prints its row. */
+	private static void benchmarkBudget(long budget) {
+		Environment env = new Environment();
+		StudentRobot robot = new StudentRobot(env);
+		robot.setTimeBudget(budget);
+		robot.setOpeningBook(null);
+		env.addPlayer(robot, Status.YELLOW);
+		env.addPlayer(new GreedyRobot(env), Status.RED);
+
+		long nanos = 0, maxNanos = 0;
+		int depths = 0, maxDepth = 0;
+		int moves = 0;
+		for (int turn = 0; !env.hasGameTerminated(); turn++) {
+			long start = System.nanoTime();
+			env.updateEnvironment();
+			if (turn % 2 == 0) {
+				long elapsed = System.nanoTime() - start;
+				nanos += elapsed;
+				maxNanos = Math.max(maxNanos, elapsed);
+				depths += robot.getCompletedDepth();
+				maxDepth = Math.max(maxDepth, robot.getCompletedDepth());
+				moves++;
+			}
+		}
+		System.out.printf("%-10d %10.1f %10d %10.3f %10.3f %8s%n", budget, (double) depths / moves, maxDepth,
+				nanos / 1e6 / moves, maxNanos / 1e6, env.getGameStatus());
+	}
+
+	/** Plays one game at the given depth and prints its row. */
+	private static void benchmark(int depth, boolean pruning, boolean useTable) {
+		Environment env = new Environment();
+		StudentRobot robot = new StudentRobot(env);
+		robot.setDepth(depth);
+		robot.setPruning(pruning);
+		TranspositionTable table = useTable ? new TranspositionTable(TABLE_MB) : null;
+		robot.setTranspositionTable(table);
+		robot.setOpeningBook(null);
+		env.addPlayer(robot, Status.YELLOW);
+		env.addPlayer(new GreedyRobot(env), Status.RED);
+
+		long nodes = 0;
+		long nanos = 0;
+		int moves = 0;
+		for (int turn = 0; !env.hasGameTerminated(); turn++) {
+			long start = System.nanoTime();
+			env.updateEnvironment();
+			// YELLOW moves on even turns
+			if (turn % 2 == 0) {
+				nanos += System.nanoTime() - start;
+				nodes += robot.getNodeCount();
+				moves++;
+			}
+		}
+		String search = !pruning ? "minimax" : useTable ? "alphabeta+tt" : "alphabeta";
+		String hits = "-", collisions = "-";
+		if (table != null && table.getProbes() > 0) {
+			hits = String.format("%.1f%%", 100.0 * table.getHits() / table.getProbes());
+			collisions = String.format("%.1f%%", 100.0 * table.getCollisions() / table.getProbes());
+		}
+		System.out.printf("%-6d %-12s %12d %10.3f %8s %8s %8s%n", depth, search,
+				nodes / moves, nanos / 1e6 / moves, env.getGameStatus(), hits, collisions);
+	}
+}
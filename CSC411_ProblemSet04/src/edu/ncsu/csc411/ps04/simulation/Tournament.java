@@ -0,0 +1,327 @@
+package edu.ncsu.csc411.ps04.simulation;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.net.URISyntaxException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import edu.ncsu.csc411.ps04.agent.Robot;
+import edu.ncsu.csc411.ps04.agent.StudentRobot;
+import edu.ncsu.csc411.ps04.environment.Environment;
+import edu.ncsu.csc411.ps04.environment.Status;
+
+/**
+ * Plays every Robot in the agent package against every other, as both
+ * YELLOW and RED, and reports a win/draw/loss table, Elo ratings, and the
+ * number of games played per second.
+ *
+ * Robots are found by scanning the agent package on the classpath, so a new
+ * agent joins the tournament without being listed here. Games run in
+ * parallel on a fixed pool of threads, each with its own Environment and
+ * robots. Most agents play the same game every time, so each game starts
+ * with a few random moves chosen from a seeded Random; both colour
+ * assignments of a pairing use the same openings, and rerunning with the
+ * same seed replays the same openings. RandomRobot's own moves come from
+ * Math.random and cannot be seeded. StudentRobot plays without its opening
+ * book, so the table rates its search rather than the book's moves.
+ */
+public class Tournament {
+	private static final String AGENT_PACKAGE = "edu/ncsu/csc411/ps04/agent";
+	/** the random moves at the start of each game */
+	private static final int OPENING_PLIES = 2;
+	private static final double START_ELO = 1500;
+	private static final double K_FACTOR = 16;
+
+	private final List<Constructor<? extends Robot>> robots;
+	private final List<String> names;
+	private final int gamesPerPairing;
+	private final long seed;
+
+	/**
+	 * @param robots the robots to play, each with a constructor taking an Environment
+	 * @param gamesPerPairing the games each pair of robots plays with each colour assignment
+	 * @param seed the seed for the opening moves
+	 */
+	public Tournament(List<Class<? extends Robot>> robots, int gamesPerPairing, long seed) {
+		this.robots = new ArrayList<>();
+		this.names = new ArrayList<>();
+		for (Class<? extends Robot> robot : robots) {
+			try {
+				this.robots.add(robot.getConstructor(Environment.class));
+			} catch (NoSuchMethodException e) {
+				throw new IllegalArgumentException(robot.getName() + " has no Environment constructor", e);
+			}
+			this.names.add(robot.getSimpleName());
+		}
+		this.gamesPerPairing = gamesPerPairing;
+		this.seed = seed;
+	}
+
+	/**
+	 * Plays every game and prints the results.
+	 * @param threads the number of games to play at once
+	 */
+	public void run(int threads) throws InterruptedException, ExecutionException {
+		int n = robots.size();
+		List<Game> schedule = new ArrayList<>();
+		for (int i = 0; i < n; i++) {
+			for (int j = i + 1; j < n; j++) {
+				for (int g = 0; g < gamesPerPairing; g++) {
+					long opening = new Random(seed + (long) (i * n + j) * gamesPerPairing + g).nextLong();
+					schedule.add(new Game(i, j, opening));
+					schedule.add(new Game(j, i, opening));
+				}
+			}
+		}
+
+		long start = System.nanoTime();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Future<Status>> futures = new ArrayList<>();
+		try {
+			for (Game game : schedule) {
+				futures.add(pool.submit(() -> play(game)));
+			}
+			Status[] results = new Status[schedule.size()];
+			for (int i = 0; i < results.length; i++) {
+				results[i] = futures.get(i).get();
+			}
+			double seconds = (System.nanoTime() - start) / 1e9;
+			report(schedule, results, seconds, threads);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Creates one of the robots for a game, with StudentRobot's opening book turned off.
+	 * @param index the robot's index in the tournament
+	 * @param env the game's environment
+	 * @return the new robot
+	 */
+	private Robot newRobot(int index, Environment env) throws ReflectiveOperationException {
+		Robot robot = robots.get(index).newInstance(env);
+		if (robot instanceof StudentRobot) {
+			((StudentRobot) robot).setOpeningBook(null);
+		}
+		return robot;
+	}
+
+	/**
+	 * Plays one game.
+	 * @param game the robots and the opening seed
+	 * @return RED_WIN, YELLOW_WIN, or DRAW
+	 */
+	private Status play(Game game) throws ReflectiveOperationException {
+		Environment env = new Environment();
+		Random random = new Random(game.opening);
+		env.addPlayer(new OpeningRobot(env, newRobot(game.yellow, env), random), Status.YELLOW);
+		env.addPlayer(new OpeningRobot(env, newRobot(game.red, env), random), Status.RED);
+		// Robots that never make a valid move, like LazyRobot, would otherwise play forever
+		int limit = 2 * env.getRows() * env.getCols();
+		for (int turn = 0; turn < limit && !env.hasGameTerminated(); turn++) {
+			try {
+				env.updateEnvironment();
+			} catch (Exception ex) {
+				// As in RunSimulation, a Robot that crashes forfeits its move
+			}
+		}
+		Status status = env.getGameStatus();
+		return status == Status.ONGOING ? Status.DRAW : status;
+	}
+
+	/** Prints the win/draw/loss table, the standings, and the speed. */
+	private void report(List<Game> schedule, Status[] results, double seconds, int threads) {
+		int n = robots.size();
+		int[][] wins = new int[n][n], draws = new int[n][n], losses = new int[n][n];
+		double[] elo = new double[n];
+		Arrays.fill(elo, START_ELO);
+		// Ratings are updated in schedule order, so they do not depend on which thread finished first
+		for (int i = 0; i < results.length; i++) {
+			int yellow = schedule.get(i).yellow, red = schedule.get(i).red;
+			double yellowScore;
+			if (results[i] == Status.YELLOW_WIN) {
+				wins[yellow][red]++;
+				losses[red][yellow]++;
+				yellowScore = 1;
+			} else if (results[i] == Status.RED_WIN) {
+				losses[yellow][red]++;
+				wins[red][yellow]++;
+				yellowScore = 0;
+			} else {
+				draws[yellow][red]++;
+				draws[red][yellow]++;
+				yellowScore = 0.5;
+			}
+			double expected = 1 / (1 + Math.pow(10, (elo[red] - elo[yellow]) / 400));
+			elo[yellow] += K_FACTOR * (yellowScore - expected);
+			elo[red] -= K_FACTOR * (yellowScore - expected);
+		}
+
+		int width = names.stream().mapToInt(String::length).max().orElse(0) + 2;
+		System.out.println("Win-draw-loss of each row against each column");
+		StringBuilder header = new StringBuilder(String.format("%-" + width + "s", ""));
+		for (int j = 0; j < n; j++) {
+			header.append(String.format("%" + width + "s", names.get(j)));
+		}
+		System.out.println(header);
+		for (int i = 0; i < n; i++) {
+			StringBuilder row = new StringBuilder(String.format("%-" + width + "s", names.get(i)));
+			for (int j = 0; j < n; j++) {
+				String cell = i == j ? "-" : wins[i][j] + "-" + draws[i][j] + "-" + losses[i][j];
+				row.append(String.format("%" + width + "s", cell));
+			}
+			System.out.println(row);
+		}
+
+		System.out.println();
+		System.out.printf("%-" + width + "s %6s %6s %6s %6s %7s %7s%n", "robot", "games", "wins", "draws", "losses",
+				"score", "elo");
+		List<Integer> order = new ArrayList<>();
+		for (int i = 0; i < n; i++) {
+			order.add(i);
+		}
+		order.sort(Comparator.comparingDouble(i -> -elo[i]));
+		for (int i : order) {
+			int w = 0, d = 0, l = 0;
+			for (int j = 0; j < n; j++) {
+				w += wins[i][j];
+				d += draws[i][j];
+				l += losses[i][j];
+			}
+			int games = w + d + l;
+			System.out.printf("%-" + width + "s %6d %6d %6d %6d %6.1f%% %7.0f%n", names.get(i), games, w, d, l,
+					100.0 * (w + 0.5 * d) / games, elo[i]);
+		}
+
+		System.out.println();
+		System.out.printf("%d games on %d threads in %.2f s, %.1f games/s%n", results.length, threads, seconds,
+				results.length / seconds);
+	}
+
+	/**
+	 * Finds every concrete Robot in the agent package and its subpackages that can
+	 * be built from an Environment, by listing the package's class files on the
+	 * classpath, whether in a directory or a jar.
+	 * @return the robots, sorted by name
+	 */
+	public static List<Class<? extends Robot>> discoverRobots() throws IOException, URISyntaxException {
+		Path root = Paths.get(Robot.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		List<String> classNames;
+		if (Files.isDirectory(root)) {
+			classNames = listClasses(root);
+		} else {
+			try (FileSystem jar = FileSystems.newFileSystem(root, (ClassLoader) null)) {
+				classNames = listClasses(jar.getPath("/"));
+			}
+		}
+
+		List<Class<? extends Robot>> robots = new ArrayList<>();
+		for (String name : classNames) {
+			Class<?> type;
+			try {
+				type = Class.forName(name, false, Robot.class.getClassLoader());
+			} catch (ClassNotFoundException | LinkageError e) {
+				continue;
+			}
+			if (Robot.class.isAssignableFrom(type) && !Modifier.isAbstract(type.getModifiers())
+					&& Modifier.isPublic(type.getModifiers()) && !type.isMemberClass()) {
+				try {
+					type.getConstructor(Environment.class);
+					robots.add(type.asSubclass(Robot.class));
+				} catch (NoSuchMethodException e) {
+					// Not playable without knowing how to build it
+				}
+			}
+		}
+		robots.sort(Comparator.comparing(Class::getSimpleName));
+		return robots;
+	}
+
+	/** @return the names of the top-level classes in the agent package below root */
+	private static List<String> listClasses(Path root) throws IOException {
+		Path dir = root.resolve(AGENT_PACKAGE);
+		if (!Files.isDirectory(dir)) {
+			return new ArrayList<>();
+		}
+		try (Stream<Path> files = Files.walk(dir)) {
+			return files.map(path -> root.relativize(path).toString().replace('\\', '/'))
+					.filter(path -> path.endsWith(".class") && !path.contains("$"))
+					.map(path -> path.substring(0, path.length() - ".class".length()).replace('/', '.'))
+					.sorted()
+					.collect(Collectors.toList());
+		}
+	}
+
+	/** One game of the schedule: the indices of its robots and the seed of its opening. */
+	private static class Game {
+		final int yellow, red;
+		final long opening;
+
+		Game(int yellow, int red, long opening) {
+			this.yellow = yellow;
+			this.red = red;
+			this.opening = opening;
+		}
+	}
+
+	/**
+	 * Plays the game's opening moves at random, then hands over to the robot it wraps.
+	 * The two players of a game share one Random, so the opening depends only on the seed.
+	 */
+	private static class OpeningRobot extends Robot {
+		private final Robot robot;
+		private final Random random;
+
+		OpeningRobot(Environment env, Robot robot, Random random) {
+			super(env);
+			this.robot = robot;
+			this.random = random;
+		}
+
+		@Override
+		public void setRole(Status role) {
+			super.setRole(role);
+			robot.setRole(role);
+		}
+
+		@Override
+		public int getAction() {
+			if (env.getBitboard().getMoveCount() < OPENING_PLIES) {
+				List<Integer> actions = env.getValidActions();
+				return actions.get(random.nextInt(actions.size()));
+			}
+			return robot.getAction();
+		}
+	}
+
+	/**
+	 * Runs the tournament.
+	 * @param args optional: games per pairing and colour (default 10), threads (default one
+	 * per core), and the seed (default 411)
+	 */
+	public static void main(String[] args) throws Exception {
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 411;
+		List<Class<? extends Robot>> robots = discoverRobots();
+		System.out.println("Robots: " + robots.stream().map(Class::getSimpleName).collect(Collectors.joining(", ")));
+		System.out.println();
+		new Tournament(robots, games, seed).run(threads);
+	}
+}
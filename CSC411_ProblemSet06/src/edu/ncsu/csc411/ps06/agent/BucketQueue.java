@@ -0,0 +1,74 @@
+package edu.ncsu.csc411.ps06.agent;
+
+import java.util.Arrays;
+
+/**
+ * A monotone bucket queue (Dial's algorithm) for A* with integer costs.
+ * With integer steps and an integer heuristic every f-score is a small
+ * non-negative integer, so the open list can keep one bucket of node
+ * indices per f-score and push and pop in O(1) instead of O(log n).
+ *
+ * Buckets are plain int arrays that are kept between searches. Within a
+ * bucket nodes are popped last-in first-out, which favours the deepest node
+ * among equal f-scores. A push below the current minimum is still handled,
+ * so inconsistent heuristics only cost a rescan, not correctness.
+ */
+public class BucketQueue implements GridSearch.OpenList {
+	/** the node indices waiting in each bucket, indexed by f-score */
+	private int[][] buckets = new int[64][];
+	/** the number of nodes in each bucket */
+	private int[] sizes = new int[64];
+	/** the lowest f-score that may have a non-empty bucket */
+	private int min;
+	/** one past the highest f-score pushed since the last clear */
+	private int max;
+	/** the number of nodes in the queue */
+	private int count;
+
+	@Override
+	public void clear() {
+		Arrays.fill(sizes, 0, max, 0);
+		min = 0;
+		max = 0;
+		count = 0;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	@Override
+	public void push(int f, int node) {
+		if (f >= sizes.length) {
+			int length = Math.max(f + 1, sizes.length * 2);
+			buckets = Arrays.copyOf(buckets, length);
+			sizes = Arrays.copyOf(sizes, length);
+		}
+		int[] bucket = buckets[f];
+		if (bucket == null) {
+			bucket = new int[16];
+			buckets[f] = bucket;
+		} else if (sizes[f] == bucket.length) {
+			bucket = Arrays.copyOf(bucket, bucket.length * 2);
+			buckets[f] = bucket;
+		}
+		bucket[sizes[f]++] = node;
+		if (count == 0 || f < min) {
+			min = f;
+		}
+		if (f >= max) {
+			max = f + 1;
+		}
+		count++;
+	}
+
+	@Override
+	public int pop() {
+		while (sizes[min] == 0) {
+			min++;
+		}
+		count--;
+		return buckets[min][--sizes[min]];
+	}
+}
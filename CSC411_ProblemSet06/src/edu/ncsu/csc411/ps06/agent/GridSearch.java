@@ -0,0 +1,102 @@
+package edu.ncsu.csc411.ps06.agent;
+
+import java.util.Arrays;
+
+/**
+ * The pieces of a grid search that StateSearch builds on: the numbering of
+ * grid cells, where a node is the cell index row * cols + col, and the open
+ * lists. An open list is either a binary heap of primitive longs that pack
+ * the f-score and the node together, or a bucket queue (Dial's algorithm)
+ * that exploits small integer f-scores.
+ */
+public class GridSearch {
+	/** the largest number of successors a node can have (4-connected grid) */
+	public static final int MAX_SUCCESSORS = 4;
+
+	private GridSearch() {
+	}
+
+	/** The open list of a search: nodes ordered by their f-score. */
+	public interface OpenList {
+		/** Removes every entry. */
+		void clear();
+		/** @return true if there are no entries */
+		boolean isEmpty();
+		/**
+		 * Adds a node with priority f.
+		 * @param f the node's f-score, never negative
+		 * @param node the node
+		 */
+		void push(int f, int node);
+		/** @return the node with the lowest f-score, removing it */
+		int pop();
+	}
+
+	/**
+	 * Returns the node index of a grid cell.
+	 * @param row the cell's row
+	 * @param col the cell's column
+	 * @param cols the number of columns in the grid
+	 * @return row * cols + col
+	 */
+	public static int cellIndex(int row, int col, int cols) {
+		return row * cols + col;
+	}
+
+	/** A binary min-heap of primitive longs packing (f << 32 | node). */
+	static class BinaryHeap implements OpenList {
+		/** the heap entries */
+		private long[] heap = new long[64];
+		/** the number of entries in the heap */
+		private int size;
+
+		@Override
+		public void clear() {
+			size = 0;
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return size == 0;
+		}
+
+		@Override
+		public void push(int f, int node) {
+			if (size == heap.length) {
+				heap = Arrays.copyOf(heap, size * 2);
+			}
+			long entry = ((long) f << 32) | (node & 0xFFFFFFFFL);
+			int i = size++;
+			while (i > 0) {
+				int up = (i - 1) >>> 1;
+				if (heap[up] <= entry) {
+					break;
+				}
+				heap[i] = heap[up];
+				i = up;
+			}
+			heap[i] = entry;
+		}
+
+		@Override
+		public int pop() {
+			long top = heap[0];
+			long last = heap[--size];
+			int i = 0;
+			int half = size >>> 1;
+			while (i < half) {
+				int child = 2 * i + 1;
+				if (child + 1 < size && heap[child + 1] < heap[child]) {
+					child++;
+				}
+				if (last <= heap[child]) {
+					break;
+				}
+				heap[i] = heap[child];
+				i = child;
+			}
+			heap[i] = last;
+			return (int) top;
+		}
+	}
+}
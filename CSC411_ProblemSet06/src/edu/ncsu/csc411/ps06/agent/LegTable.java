@@ -0,0 +1,162 @@
+package edu.ncsu.csc411.ps06.agent;
+
+import java.util.Arrays;
+
+import edu.ncsu.csc411.ps06.environment.Environment;
+
+/**
+ * Shortest legs between the points of interest of an environment: the
+ * robot's tile, keys, doors, chips, and the portal. A leg ends at the first
+ * point it reaches, so any route on the grid is a sequence of legs, and a
+ * planner can order the points on this small graph instead of searching
+ * tile by tile.
+ *
+ * The table runs one breadth-first search from each point in which every
+ * other point is a dead end, and keeps only the distance between each pair
+ * of points in a compact matrix. A leg is turned into moves only when the
+ * robot walks it: one more search, out from the leg's end, gives the next
+ * tile from every tile on the way, and serves every step of that leg. Point
+ * 0 is the robot's tile, which is never in the way of a leg and never the
+ * end of one. The per-tile buffers are allocated once and reused each time
+ * the points are measured.
+ */
+public class LegTable {
+	/** the distance between two points with no leg between them */
+	public static final int UNREACHABLE = -1;
+
+	private final Environment env;
+	private final int cells;
+	private int points;
+	/** the tile of each point */
+	private int[] cellOf = new int[0];
+	/** the length of the leg between each pair of points, points * points */
+	private int[] distances = new int[0];
+	/** which tiles a leg may cross, by cell index */
+	private boolean[] passable;
+	/** the point on each tile other than the robot's, or -1 */
+	private final int[] pointAt;
+	/** the steps from the source of the last search to each tile, or -1 */
+	private final int[] dist;
+	/** reused queue for the searches */
+	private final int[] queue;
+	/** the next tile towards legEnd from each tile the last leg search reached */
+	private final int[] toward;
+	/** the point the last leg search started from, or -1 if there was none since measure */
+	private int legEnd = -1;
+
+	/**
+	 * Prepares a table for the tiles of env. Call measure before using it.
+	 * @param env the environment the points are in
+	 */
+	public LegTable(Environment env) {
+		this.env = env;
+		this.cells = env.getRows() * env.getCols();
+		this.pointAt = new int[cells];
+		Arrays.fill(pointAt, -1);
+		this.dist = new int[cells];
+		this.queue = new int[cells];
+		this.toward = new int[cells];
+	}
+
+	/**
+	 * Measures the legs between points, replacing the ones measured before.
+	 * @param cellOf the tile of each point, starting with the robot's
+	 * @param passable which tiles a leg may cross, by cell index; kept, and
+	 *        read again as legs are walked, so it must not change until the
+	 *        next call
+	 */
+	public void measure(int[] cellOf, boolean[] passable) {
+		for (int p = 1; p < points; p++) {
+			pointAt[this.cellOf[p]] = -1;
+		}
+		this.points = cellOf.length;
+		this.cellOf = cellOf.clone();
+		this.passable = passable;
+		if (distances.length < points * points) {
+			distances = new int[points * points];
+		}
+		for (int p = 1; p < points; p++) {
+			pointAt[cellOf[p]] = p;
+		}
+		for (int p = 0; p < points; p++) {
+			breadthFirst(p, -1);
+			Arrays.fill(distances, p * points, (p + 1) * points, UNREACHABLE);
+			for (int q = 1; q < points; q++) {
+				if (q != p && dist[cellOf[q]] >= 0) {
+					distances[p * points + q] = dist[cellOf[q]];
+				}
+			}
+		}
+		legEnd = -1;
+	}
+
+	/** @return the number of points */
+	public int size() {
+		return points;
+	}
+
+	/**
+	 * @param point a point
+	 * @return the point's tile
+	 */
+	public int getCell(int point) {
+		return cellOf[point];
+	}
+
+	/**
+	 * @param from the point a leg starts at
+	 * @param to the point a leg ends at
+	 * @return the number of steps in a shortest leg, or UNREACHABLE
+	 */
+	public int distance(int from, int to) {
+		return distances[from * points + to];
+	}
+
+	/**
+	 * @param cell a tile on a leg towards the point
+	 * @param to the point the leg ends at
+	 * @return the next tile on a shortest leg, or -1 if cell is not on one
+	 */
+	public int nextCell(int cell, int to) {
+		if (to != legEnd || dist[cell] < 0) {
+			legEnd = to;
+			breadthFirst(to, cell);
+			if (dist[cell] < 0) {
+				return -1;
+			}
+		}
+		return toward[cell];
+	}
+
+	/**
+	 * Searches out from one point, recording the steps to every tile reached and
+	 * the tile it was reached from, which is the next tile on the way back to the
+	 * source. Other points are reached but not searched past, since a leg ends at
+	 * the first point it reaches.
+	 * @param stop a tile to stop at once it is reached, or -1 to search every tile
+	 */
+	private void breadthFirst(int source, int stop) {
+		Arrays.fill(dist, -1);
+		int start = cellOf[source];
+		int head = 0, tail = 0;
+		dist[start] = 0;
+		queue[tail++] = start;
+		while (head < tail) {
+			int cell = queue[head++];
+			if (pointAt[cell] >= 0 && cell != start) {
+				continue;
+			}
+			for (int direction = 0; direction < Environment.NUM_DIRECTIONS; direction++) {
+				int neighbor = env.getNeighborIndex(cell, direction);
+				if (neighbor >= 0 && passable[neighbor] && dist[neighbor] < 0) {
+					dist[neighbor] = dist[cell] + 1;
+					toward[neighbor] = cell;
+					if (neighbor == stop) {
+						return;
+					}
+					queue[tail++] = neighbor;
+				}
+			}
+		}
+	}
+}
@@ -1,13 +1,10 @@
 package edu.ncsu.csc411.ps06.agent;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Set;
-import java.util.Stack;
 
 import edu.ncsu.csc411.ps06.environment.Action;
 import edu.ncsu.csc411.ps06.environment.Environment;
@@ -37,29 +34,135 @@ Problem Set 06 - In this problem set, you will be developing a planning
 */
 
 public class Robot {
+	/** the key types, in the order their counts are packed into a search state */
+	private static final TileStatus[] KEYS = {TileStatus.KEY_BLUE, TileStatus.KEY_RED,
+	                                          TileStatus.KEY_GREEN, TileStatus.KEY_YELLOW};
+	/**
+	 * the work an optimal route search may do, divided by the cube of the number of
+	 * points to give the most states it may expand, since each expansion tries a leg
+	 * to every point and each new set of chips costs a spanning tree over them. Maps
+	 * with a few dozen points are planned exactly. Past the limit, the search is
+	 * repeated with the heuristic weighted by 2, 4, ..., which finds a route at most
+	 * that many times longer than the shortest, but far sooner on maps with many chips
+	 */
+	private static final long WORK_LIMIT = 4000000000L;
+	/** the heuristic weight at which the route search runs without a limit */
+	private static final int MAX_WEIGHT = 16;
+
 	private Environment env;
-	private PriorityQueue<Node> openSet = new PriorityQueue<>();
-    private Set<StateTuple> closedSet = new HashSet<>();
-    private Map<StateTuple, StateTuple> cameFrom = new HashMap<>();
-    private Map<StateTuple, Integer> gScore = new HashMap<>();
+	/**
+	 * the A* engine, which plans over the points of interest rather than every tile.
+	 * A search state is one long: the point the robot is at in the low bits, then
+	 * the count of each key type held, then one bit per key, door, or chip used up
+	 */
+	private StateSearch search;
+	/** the legs between the points of interest in the last search */
+	private LegTable legs;
+	/** the number of bits of the point in the last search */
+	private int pointBits;
+	/** the lowest bit and the width of each key count in the last search */
+	private int[] keyShift = new int[KEYS.length], keyBits = new int[KEYS.length];
+	/** the number of tracked doors of each key type, the most keys of it worth counting as held */
+	private int[] keyCap = new int[KEYS.length];
+	/** the lowest bit of the item mask in the last search */
+	private int itemShift;
+	/** the number of items in the item mask, which are points 1 to items */
+	private int items;
+	/** the first bit of the item mask that belongs to a chip */
+	private int firstChip;
+	/** the number of chips in the item mask, which have the bits from firstChip on */
+	private int chips;
+	/** the bits of the item mask that belong to chips */
+	private long chipItems;
+	/** whether every chip on the map has a bit in the item mask */
+	private boolean allChipsTracked;
+	/** the bit of the key, door, or chip on each cell, or -1, in the last search */
+	private int[] itemIndex = new int[0];
+	/** the cell of each item, by bit */
+	private int[] itemCell = new int[Long.SIZE];
+	/** the point of the portal in the last search */
+	private int portalPoint;
+	/** the status of each cell when the last search started */
+	private TileStatus[] tileAt = new TileStatus[0];
+	/** the cells a leg may cross in the last search */
+	private boolean[] passable = new boolean[0];
+	/** the estimate of the steps left through the tracked chips in the last search */
+	private TourBound tour;
+	/** the search states along the route being followed, from where it was planned, or null */
+	private long[] route;
+	/** the index in route of the point the robot is walking to */
+	private int next;
+	/** the cell the robot's last action should have moved it to */
+	private int expectedCell = -1;
+	/** whether the A* engine uses a bucket queue instead of a binary heap */
+	private boolean bucketQueue;
+	/** whether the heuristic uses the Environment's landmark lower bound */
+	private boolean landmarkHeuristic;
     
     public Map<StateTuple, Integer> getGScores() {
-    	return new HashMap<>(gScore);
+    	Map<StateTuple, Integer> gScores = new HashMap<>();
+    	if (search == null) return gScores;
+    	for (int id = 0; id < search.size(); id++) {
+    		gScores.put(toState(search.getState(id)), search.getG(id));
+    	}
+    	return gScores;
     }
     
     public Map<StateTuple, StateTuple> getCameFrom() {
-    	return new HashMap<>(cameFrom);
+    	Map<StateTuple, StateTuple> cameFrom = new HashMap<>();
+    	if (search == null) return cameFrom;
+    	for (int id = 0; id < search.size(); id++) {
+    		int parent = search.getParent(id);
+    		if (parent >= 0) {
+    			cameFrom.put(toState(search.getState(id)), toState(search.getState(parent)));
+    		}
+    	}
+    	return cameFrom;
     }
 
 	/** Initializes a Robot on a tile.
 	 * @param env the environment
    	*/
     public Robot (Environment env) { this.env = env; }
+
+    /**
+     * Selects the open list used by the A* search. A bucket queue pushes and pops
+     * in constant time since every f-score is a small integer; the binary heap is
+     * the default.
+     * @param bucketQueue true to use a bucket queue, false for a binary heap
+     */
+    public void setBucketQueue(boolean bucketQueue) {
+    	this.bucketQueue = bucketQueue;
+    	if (search != null) {
+    		search.setBucketQueue(bucketQueue);
+    	}
+    }
+
+    /**
+     * Selects the A* heuristic. The landmark (ALT) lower bound follows walls and
+     * water around the map, so door mazes expand far fewer nodes than with the
+     * Manhattan distance; the Manhattan distance is the default.
+     * @param landmarkHeuristic true to use the landmark lower bound where it is larger
+     */
+    public void setLandmarkHeuristic(boolean landmarkHeuristic) {
+    	this.landmarkHeuristic = landmarkHeuristic;
+    }
+
+    /** @return the number of states expanded by the last search */
+    public int getExpandedNodes() {
+    	return search == null ? 0 : search.getExpanded();
+    }
 	
-	/**	This getAction() uses an A* method to traverse through the map and find the optimal path to the goal
+	/**	This getAction() uses an A* method to traverse through the map and find the shortest path to the goal
 	 * while picking up chips and keys for their respective doors.
 	 * The getAction() method maps paths by assigning each node a gScore and fScore to find the most optimal next step.
+	 * On maps with too many points to search exactly within the limit, the path is found by weighted A*
+	 * instead and may be longer than the shortest by up to the heuristic's weight.
 	 * 
+	 * The search runs over the points of interest: the robot, keys, doors, chips, and the portal.
+	 * Each move is a whole leg between two points, measured beforehand by a LegTable. The route
+	 * is kept and walked one tile at a time, and planned again only when the robot is not where
+	 * the route put it or the keys and items differ from what the route predicted.
 	 * The agent evaluates possible next states by avoiding walls and water, picking up keys and chips, 
 	 * and skipping doors unless the required key is collected.
 	 * 
@@ -70,86 +173,378 @@ public class Robot {
 	*/ 
     public Action getAction() {
       Position selfPos = env.getRobotPosition(this);
+      int cell = GridSearch.cellIndex(selfPos.getRow(), selfPos.getCol(), env.getCols());
+      // The world only changes when the robot picks something up or opens a door, so the
+      // route is kept for as long as every step turns out the way it predicted, and until
+      // it runs out short of the portal, as it does when there are more chips than tracked
+      if (route == null || cell != expectedCell || !onRoute(cell) || endedShort()) {
+          route = plan(cell);
+          next = 1;
+          if (route == null) {
+              expectedCell = -1;
+              return exploreForKeys();
+          }
+      }
+      return follow(cell);
+  }
+
+  /**
+   * Checks the world against the route: the robot must have the keys and the map
+   * the items the route predicts at this point. Moves on to the next point of the
+   * route when the robot has reached it.
+   * @param cell the robot's cell
+   * @return true if the route still holds
+   */
+  private boolean onRoute(int cell) {
+      if (next < route.length && cell == legs.getCell(pointOf(route[next]))) {
+          next++;
+      }
+      long point = (1L << pointBits) - 1;
+      return (observe(cell) & ~point) == (route[next - 1] & ~point);
+  }
+
+  /** @return true if the robot has walked the whole route and it did not end at the portal */
+  private boolean endedShort() {
+      return next == route.length && pointOf(route[next - 1]) != portalPoint;
+  }
+
+  /**
+   * Takes the next step of the leg to the route's next point.
+   * @param cell the robot's cell
+   * @return the action that moves the robot one tile along the leg
+   */
+  private Action follow(int cell) {
+      if (next == route.length) {
+          expectedCell = cell;
+          return Action.DO_NOTHING;
+      }
+      expectedCell = legs.nextCell(cell, pointOf(route[next]));
+      int cols = env.getCols();
+      if (expectedCell / cols < cell / cols) {
+          return Action.MOVE_UP;
+      } else if (expectedCell / cols > cell / cols) {
+          return Action.MOVE_DOWN;
+      } else if (expectedCell % cols < cell % cols) {
+          return Action.MOVE_LEFT;
+      } else {
+          return Action.MOVE_RIGHT;
+      }
+  }
+
+  /**
+   * Describes the world as a search state at point 0: the keys held, and the items
+   * the last plan numbered that are gone from the map or under the robot. The
+   * Environment takes the item under the robot when it next moves, so it counts as
+   * used already.
+   * @param cell the robot's cell
+   * @return the packed state
+   */
+  private long observe(int cell) {
+      int[] held = new int[KEYS.length];
+      for (String item : env.getRobotHoldings(this)) {
+          held[keyIndex(TileStatus.valueOf(item))]++;
+      }
+      long state = 0; // point 0, the robot
+      for (int k = 0; k < KEYS.length; k++) {
+          state |= (long) Math.min(held[k], keyCap[k]) << keyShift[k];
+      }
+      int cols = env.getCols();
+      for (int i = 0; i < items; i++) {
+          int c = itemCell[i];
+          if (!env.hasTileAt(tileAt[c], env.getPosition(c / cols, c % cols))) {
+              state |= 1L << (itemShift + i);
+          }
+      }
+      int item = itemIndex[cell];
+      if (item >= 0 && (state >>> (itemShift + item) & 1) == 0) {
+          TileStatus tile = tileAt[cell];
+          state |= 1L << (itemShift + item);
+          if (isKey(tile)) {
+              state += 1L << keyShift[keyIndex(tile)];
+          } else if (isDoor(tile)) {
+              state -= 1L << keyShift[keyIndex(keyDoor(tile))];
+          }
+      }
+      return state;
+  }
+
+  /**
+   * Plans a route from the robot's cell with the world as it is now.
+   * @param startCell the robot's cell
+   * @return the search states along the route, or null if no route was found
+   */
+  private long[] plan(int startCell) {
       Map<TileStatus, ArrayList<Position>> envPositions = env.getEnvironmentPositions();
       Position targetPos = envPositions.get(TileStatus.GOAL).get(0);
-      ArrayList<Position> chips = envPositions.get(TileStatus.CHIP);
-      int totalChips = chips.size();
 
-      Map<TileStatus, Integer> currentKeys = new HashMap<>();
+      int[] currentKeys = new int[KEYS.length];
       ArrayList<String> inventory = env.getRobotHoldings(this);
       for (String item : inventory) {
-          TileStatus keyStatus = TileStatus.valueOf(item);
-          currentKeys.put(keyStatus, currentKeys.getOrDefault(keyStatus, 0) + 1);
+          currentKeys[keyIndex(TileStatus.valueOf(item))]++;
       }
 
-      Map<TileStatus, Set<Position>> availableKeys = new HashMap<>();
-      for (TileStatus keyType : new TileStatus[]{TileStatus.KEY_BLUE, TileStatus.KEY_RED, 
-                                               TileStatus.KEY_GREEN, TileStatus.KEY_YELLOW}) {
-          availableKeys.put(keyType, new HashSet<>(envPositions.getOrDefault(keyType, new ArrayList<>())));
+      int cols = env.getCols();
+      int cells = env.getRows() * cols;
+      if (tileAt.length != cells) {
+          tileAt = new TileStatus[cells];
+          itemIndex = new int[cells];
+          passable = new boolean[cells];
+          legs = new LegTable(env);
+          tour = new TourBound(env);
+      }
+      for (int cell = 0; cell < cells; cell++) {
+          tileAt[cell] = env.getTiles().get(env.getPosition(cell / cols, cell % cols)).getStatus();
+          itemIndex[cell] = -1;
       }
 
-      openSet.clear();
-      closedSet.clear();
-      cameFrom.clear();
-      gScore.clear();
+      // Doors and their keys are numbered first, since they decide which chips can be reached.
+      // On a map with more items than fit, the rest are left out of this plan: an
+      // untracked key is not picked up, an untracked door stays shut, and the plan
+      // collects just the tracked chips before replanning. Each field gets just enough
+      // bits for the tracked items, so fewer are tracked until the fields fit the long.
+      ArrayList<Position> goalDoors = envPositions.get(TileStatus.DOOR_GOAL);
+      for (int tracked = Long.SIZE; !layOut(envPositions, currentKeys, tracked, goalDoors.size(), cols); tracked--) {
+          for (int i = 0; i < items; i++) {
+              itemIndex[itemCell[i]] = -1;
+          }
+      }
+      allChipsTracked = chips == envPositions.get(TileStatus.CHIP).size();
+      chipItems = mask(firstChip + chips) & ~mask(firstChip);
 
-      Node start = new Node(selfPos, 0, heuristic(selfPos, targetPos), currentKeys, 0);
-      openSet.add(start);
-      gScore.put(start.state, 0);
+      if (search == null) {
+          search = new StateSearch();
+          search.setBucketQueue(bucketQueue);
+      }
 
-      while (!openSet.isEmpty()) {
-          Node current = openSet.poll();
-          StateTuple currentState = current.state;
+      long start = observe(startCell);
+      int targetCell = GridSearch.cellIndex(targetPos.getRow(), targetPos.getCol(), cols);
 
-          if (current.position.equals(targetPos) && current.chips == totalChips) {
-              return reconstructPath(currentState);
-          }
+      // Point 0 is the robot, then the items in bit order, the goal doors, and the portal
+      int[] pointCells = new int[items + goalDoors.size() + 2];
+      pointCells[0] = startCell;
+      System.arraycopy(itemCell, 0, pointCells, 1, items);
+      for (int i = 0; i < goalDoors.size(); i++) {
+          Position door = goalDoors.get(i);
+          pointCells[items + 1 + i] = GridSearch.cellIndex(door.getRow(), door.getCol(), cols);
+      }
+      portalPoint = pointCells.length - 1;
+      pointCells[portalPoint] = targetCell;
+      // Doors left out of the item mask stay shut for this plan
+      for (int cell = 0; cell < cells; cell++) {
+          TileStatus tile = tileAt[cell];
+          passable[cell] = tile != TileStatus.WALL && tile != TileStatus.WATER && !(isDoor(tile) && itemIndex[cell] < 0);
+      }
+      legs.measure(pointCells, passable);
 
-          if (closedSet.contains(currentState)) continue;
-          closedSet.add(currentState);
+      tour.measure(Arrays.copyOfRange(itemCell, firstChip, firstChip + chips), allChipsTracked ? targetCell : -1, pointCells);
 
-          for (Position neighborPos : env.getNeighborPositions(current.position).values()) {
-              if (neighborPos == null) continue;
+      int goal = -1;
+      long points = legs.size();
+      int expansionLimit = (int) Math.min(Integer.MAX_VALUE, WORK_LIMIT / (points * points * points));
+      for (int weight = 1; weight <= MAX_WEIGHT; weight *= 2) {
+          int w = weight;
+          search.setExpansionLimit(weight < MAX_WEIGHT ? expansionLimit : Integer.MAX_VALUE);
+          goal = search.run(start,
+                  state -> chipsLeft(state) == 0 && (!allChipsTracked || pointOf(state) == portalPoint),
+                  this::successors,
+                  state -> w * Math.max(tour.estimate(pointOf(state), chipsLeft(state)),
+                          allChipsTracked ? heuristic(cellOf(state), targetCell) : 0),
+                  legs.size());
+          if (!search.isLimitReached()) break;
+      }
+      if (goal < 0) {
+          return null;
+      }
+      int[] path = search.pathTo(goal);
+      long[] states = new long[path.length];
+      for (int i = 0; i < path.length; i++) {
+          states[i] = search.getState(path[i]);
+      }
+      return states;
+  }
 
-              TileStatus tile = env.getTiles().get(neighborPos).getStatus();
+  /**
+   * Numbers up to tracked items, doors first, then a key for each, then chips,
+   * then the spare keys, and lays out the fields of the search state around
+   * them: the point index is sized for the tracked items, the goal doors, the
+   * robot and the portal, and each key count for the keys of its type that are
+   * tracked plus the ones held, of which no more count than there are tracked
+   * doors to open.
+   * @param envPositions the positions of each tile type
+   * @param currentKeys the number of keys of each type held
+   * @param tracked the most items to number
+   * @param goalDoors the number of goal doors
+   * @param cols the number of columns in the environment
+   * @return true if the fields fit in a long
+   */
+  private boolean layOut(Map<TileStatus, ArrayList<Position>> envPositions, int[] currentKeys,
+                         int tracked, int goalDoors, int cols) {
+      items = 0;
+      Arrays.fill(keyCap, 0);
+      for (TileStatus type : TileStatus.values()) {
+          if (isDoor(type)) {
+              int before = items;
+              items = addItems(envPositions.get(type), items, tracked, cols);
+              keyCap[keyIndex(keyDoor(type))] = items - before;
+          }
+      }
+      // One key per tracked door comes before the chips, and any more after them, so
+      // that spare keys are the first to be left out. Keys that open none of the
+      // tracked doors would only take up bits.
+      int[] keysTracked = new int[KEYS.length];
+      for (int k = 0; k < KEYS.length; k++) {
+          List<Position> keys = envPositions.get(KEYS[k]);
+          int before = items;
+          items = addItems(keys.subList(0, Math.min(keyCap[k], keys.size())), items, tracked, cols);
+          keysTracked[k] = items - before;
+      }
+      firstChip = items;
+      items = addItems(envPositions.get(TileStatus.CHIP), items, tracked, cols);
+      chips = items - firstChip;
+      for (int k = 0; k < KEYS.length; k++) {
+          List<Position> keys = envPositions.get(KEYS[k]);
+          if (keyCap[k] > 0) {
+              int before = items;
+              items = addItems(keys.subList(keysTracked[k], keys.size()), items, tracked, cols);
+              keysTracked[k] += items - before;
+          }
+      }
 
+      pointBits = bitsFor(items + goalDoors + 1);
+      int shift = pointBits;
+      for (int k = 0; k < KEYS.length; k++) {
+          keyShift[k] = shift;
+          keyBits[k] = bitsFor(Math.min(currentKeys[k], keyCap[k]) + keysTracked[k]);
+          shift += keyBits[k];
+      }
+      itemShift = shift;
+      return itemShift + items <= Long.SIZE;
+  }
 
-              if (tile == TileStatus.WALL || tile == TileStatus.WATER) continue;
-              if (tile == TileStatus.DOOR_GOAL && current.chips < totalChips) continue;
+  /**
+   * Gives the next free bits of the item mask to the items at the given positions.
+   * @param positions the items to number
+   * @param items the number of items already numbered
+   * @param tracked the most items to number
+   * @param cols the number of columns in the environment
+   * @return the number of items numbered afterwards
+   */
+  private int addItems(List<Position> positions, int items, int tracked, int cols) {
+      for (Position p : positions) {
+          if (items == tracked) break;
+          int cell = GridSearch.cellIndex(p.getRow(), p.getCol(), cols);
+          itemCell[items] = cell;
+          itemIndex[cell] = items++;
+      }
+      return items;
+  }
 
-              Map<TileStatus, Integer> newKeys = new HashMap<>(currentState.keys);
-              int newChips = currentState.chips;
+  /**
+   * Writes the successors of a search state into out, one for each point a leg
+   * leads to, and the length of each leg into costs. The goal door before every
+   * chip is collected and doors without a matching key are skipped. Arriving at a
+   * key, door, or chip the state has not used up sets its bit; a key adds to its
+   * type's count and a door spends one, as in the Environment.
+   * @param state the state to expand
+   * @param out the buffer to write successors to
+   * @param costs the buffer to write the steps to each successor to
+   * @return the number of successors written
+   */
+  private int successors(long state, long[] out, int[] costs) {
+      int from = pointOf(state);
+      long used = itemsOf(state);
+      boolean allCollected = allChipsTracked && (used & chipItems) == chipItems;
+      long withoutPoint = state & -(1L << pointBits);
+      int count = 0;
+      for (int to = 1; to < legs.size(); to++) {
+          int steps = legs.distance(from, to);
+          if (steps == LegTable.UNREACHABLE) continue;
 
-              if (isKey(tile) && availableKeys.get(tile).contains(neighborPos)) {
-                  newKeys.put(tile, newKeys.getOrDefault(tile, 0) + 1);
-                  availableKeys.get(tile).remove(neighborPos);
-          
-              }
+          TileStatus tile = tileAt[legs.getCell(to)];
+          if (tile == TileStatus.DOOR_GOAL && !allCollected) continue;
 
-              if (tile == TileStatus.CHIP) {
-                  newChips++;
+          long next = withoutPoint | to;
+          int item = to - 1;
+          if (item < items && (used >>> item & 1) == 0) {
+              next |= 1L << (itemShift + item);
+              if (isKey(tile)) {
+                  next += 1L << keyShift[keyIndex(tile)];
+              } else if (isDoor(tile)) {
+                  int k = keyIndex(keyDoor(tile));
+                  if (keysHeld(state, k) == 0) continue; // Skip
+                  next -= 1L << keyShift[k];
               }
+          }
 
-              if (isDoor(tile)) {
-                  TileStatus requiredKey = keyDoor(tile);
-                  if (!newKeys.containsKey(requiredKey) || newKeys.get(requiredKey) <= 0) {
-                      continue; // Skip
-                  }
-              }
+          out[count] = next;
+          costs[count++] = steps;
+      }
+      return count;
+  }
 
-              StateTuple neighborState = new StateTuple(neighborPos, newKeys, newChips);
-              int tentativeG = gScore.get(currentState) + 1;
+  /** @return the point a search state is at */
+  private int pointOf(long state) {
+      return (int) (state & ((1L << pointBits) - 1));
+  }
 
-              if (!gScore.containsKey(neighborState) || tentativeG < gScore.get(neighborState)) {
-                  cameFrom.put(neighborState, currentState);
-                  gScore.put(neighborState, tentativeG);
-                  int f = tentativeG + heuristic(neighborPos, targetPos);
-                  openSet.add(new Node(neighborPos, tentativeG, f, newKeys, newChips));
-              }
+  /** @return the cell index of a search state */
+  private int cellOf(long state) {
+      return legs.getCell(pointOf(state));
+  }
+
+  /** @return the number of keys of type KEYS[k] held in a search state */
+  private int keysHeld(long state, int k) {
+      return (int) (state >>> keyShift[k]) & ((1 << keyBits[k]) - 1);
+  }
+
+  /** @return the mask of keys, doors, and chips used up in a search state */
+  private long itemsOf(long state) {
+      return itemShift == Long.SIZE ? 0 : state >>> itemShift;
+  }
+
+  /** @return the mask of tracked chips not yet collected in a search state, lowest chip first */
+  private long chipsLeft(long state) {
+      return (chipItems & ~itemsOf(state)) >>> firstChip;
+  }
+
+  /** @return a mask of the lowest bits bits */
+  private static long mask(int bits) {
+      return bits == Long.SIZE ? -1L : (1L << bits) - 1;
+  }
+
+  /** @return the number of bits needed to hold values from 0 to max */
+  private static int bitsFor(int max) {
+      return Integer.SIZE - Integer.numberOfLeadingZeros(max);
+  }
+
+  /**
+   * Decodes a search state into the StateTuple it represents.
+   * @param state the state to decode
+   * @return the state's position, held keys, and chip count
+   */
+  private StateTuple toState(long state) {
+      int cols = env.getCols();
+      int cell = cellOf(state);
+      Map<TileStatus, Integer> keys = new HashMap<>();
+      for (int k = 0; k < KEYS.length; k++) {
+          int held = keysHeld(state, k);
+          if (held > 0) {
+              keys.put(KEYS[k], held);
           }
       }
+      return new StateTuple(env.getPosition(cell / cols, cell % cols), keys, Long.bitCount(itemsOf(state) & chipItems));
+  }
 
-      return exploreForKeys();
+  /**
+   * Returns the position of a key type within KEYS.
+   * @param key the key type
+   * @return its index
+   */
+  private int keyIndex(TileStatus key) {
+      for (int k = 0; k < KEYS.length; k++) {
+          if (KEYS[k] == key) return k;
+      }
+      return -1;
   }
 
   /**
@@ -214,49 +609,23 @@ public class Robot {
 		}
 	}
 	
-	/**
-	 * Reconstructs the path from the target position to the robot's current position.
-	 * The cameFrom map stores the previous positions for each node in the path
-	 * Determines the next step the robot will take and returns the robot's action.
-	 * 
-	 * @param target the target position to reconstruct the path from
-	 * @return the action to take
-	 */
-	private Action reconstructPath(StateTuple targetState) {
-	    Stack<Position> path = new Stack<>();
-	    StateTuple current = targetState;
-	
-	    while (cameFrom.containsKey(current)) {
-	    	path.push(current.pos);
-	    	current = cameFrom.get(current);
-	    }
-
-	    if (!path.isEmpty()) {
-	        Position next = path.pop();
-	        Position selfPos = env.getRobotPosition(this);
-	        if (next.getRow() < selfPos.getRow()) {
-	            return Action.MOVE_UP;
-	        } else if (next.getRow() > selfPos.getRow()) {
-	            return Action.MOVE_DOWN;
-	        } else if (next.getCol() < selfPos.getCol()) {
-	            return Action.MOVE_LEFT;
-	        } else if (next.getCol() > selfPos.getCol()) {
-	            return Action.MOVE_RIGHT;
-	        }
-	    }
-	
-	    return Action.DO_NOTHING;
-	}
 
 	/**
-	 * heuristic that determines the distance from position a to position b.
+	 * heuristic that determines the Manhattan distance between two cells.
+	 * With the landmark heuristic enabled, the Environment's landmark lower
+	 * bound is used when it is larger.
 	 * 
-	 * @param a the starting position
-	 * @param b the target position
+	 * @param a the starting cell index
+	 * @param b the target cell index
 	 * @return the estimated cost from a to b
 	 */
-	private int heuristic(Position a, Position b) {
-        return Math.abs(a.getRow() - b.getRow()) + Math.abs(a.getCol() - b.getCol());
+	private int heuristic(int a, int b) {
+	    int cols = env.getCols();
+        int manhattan = Math.abs(a / cols - b / cols) + Math.abs(a % cols - b % cols);
+        if (landmarkHeuristic) {
+            return Math.max(manhattan, env.getLandmarks().lowerBound(a, b));
+        }
+        return manhattan;
 	}
 	
 	@Override
@@ -264,38 +633,6 @@ public class Robot {
 		return "Robot [pos=" + env.getRobotPosition(this) + "]";
 	}
 	
-	/**
-	 * Inner class that describes a Node 
-	 */
-	class Node implements Comparable<Node> {
-		/** Position */
-		Position position;
-		/** the g score */
-		int g;
-		/** the f score */
-		int f;
-		/** the map of keys */
-		Map<TileStatus, Integer> keys; // keys to open doors
-		/** the number of chips */
-		int chips;
-		/** the state */
-		StateTuple state;
-		
-		public Node(Position position, int g, int f, Map<TileStatus, Integer> keys, int chips) {
-			this.position = position;
-			this.g = g;
-			this.f = f;
-			this.keys = new HashMap<>(keys);
-			this.chips = chips;
-			this.state = new StateTuple(position, this.keys, chips);
-		}
-		
-		@Override
-		public int compareTo(Node other) {
-			return Integer.compare(this.f, other.f);
-		}
-	}
-	
 	/**
 	 * Inner class that describes the state (position, keys, and chips) of each Node
 	 */
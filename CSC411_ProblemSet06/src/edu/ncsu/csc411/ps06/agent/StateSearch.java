@@ -0,0 +1,246 @@
+package edu.ncsu.csc411.ps06.agent;
+
+import java.util.Arrays;
+
+/**
+ * A reusable A* search over graphs with positive integer edge costs whose
+ * states are packed into primitive longs. The states need not be numbered
+ * in advance: a StateTable gives each state an id the first time it is
+ * reached, and the g-scores, parents and closed flags live in int arrays
+ * indexed by id. The open list holds ids, so it is either of GridSearch's
+ * open lists. Nothing is allocated per state beyond the growth of these
+ * arrays, which are kept between searches.
+ *
+ * Moves cost one step each unless the expander is a WeightedExpander,
+ * whose moves may cost any number of steps, as when a move stands for a
+ * whole walk between two points.
+ */
+public class StateSearch {
+	/** Supplies the successors of a state. */
+	public interface Expander {
+		/**
+		 * Writes the successors of state into out.
+		 * @param state the state being expanded
+		 * @param out a buffer of at least GridSearch.MAX_SUCCESSORS entries
+		 * @return the number of successors written
+		 */
+		int expand(long state, long[] out);
+	}
+
+	/** Supplies the successors of a state and the cost of moving to each. */
+	public interface WeightedExpander {
+		/**
+		 * Writes the successors of state into out and their costs into costs.
+		 * @param state the state being expanded
+		 * @param out a buffer of at least the maximum number of successors given to run
+		 * @param costs a buffer as long as out, for the cost of each successor, at least 1
+		 * @return the number of successors written
+		 */
+		int expand(long state, long[] out, int[] costs);
+	}
+
+	/** Estimates the remaining cost from a state to the goal. */
+	public interface Heuristic {
+		/**
+		 * @param state the state to estimate from
+		 * @return an admissible estimate of the cost to the goal
+		 */
+		int estimate(long state);
+	}
+
+	/** Decides whether a state satisfies the goal. */
+	public interface Goal {
+		/**
+		 * @param state the state to test
+		 * @return true if the search may stop at state
+		 */
+		boolean isGoal(long state);
+	}
+
+	/** the ids of the states reached by the current search */
+	private final StateTable table = new StateTable();
+	/** the cost to reach each state, by id */
+	private int[] gScore = new int[64];
+	/** the id of the state each state was reached from, or -1 for the start */
+	private int[] parent = new int[64];
+	/** whether each state has been expanded, by id */
+	private boolean[] closed = new boolean[64];
+	/** the ids waiting to be expanded */
+	private GridSearch.OpenList open = new GridSearch.BinaryHeap();
+	/** reused buffer for successors */
+	private long[] successors = new long[GridSearch.MAX_SUCCESSORS];
+	/** reused buffer for the cost of each successor */
+	private int[] costs = new int[GridSearch.MAX_SUCCESSORS];
+	/** the number of states expanded by the last search */
+	private int expanded;
+	/** the most states a search may expand before giving up */
+	private int expansionLimit = Integer.MAX_VALUE;
+	/** whether the last search gave up at the expansion limit */
+	private boolean limitReached;
+
+	/**
+	 * Selects the open list implementation for later searches.
+	 * @param bucketQueue true for a bucket queue, false for a binary heap
+	 */
+	public void setBucketQueue(boolean bucketQueue) {
+		this.open = bucketQueue ? new BucketQueue() : new GridSearch.BinaryHeap();
+	}
+
+	/**
+	 * Limits how many states later searches may expand. A search that reaches the
+	 * limit stops as if no goal were reachable, and isLimitReached says so.
+	 * @param expansionLimit the most states to expand, at least 1
+	 */
+	public void setExpansionLimit(int expansionLimit) {
+		this.expansionLimit = expansionLimit;
+	}
+
+	/** @return true if the last search stopped at the expansion limit rather than finishing */
+	public boolean isLimitReached() {
+		return limitReached;
+	}
+
+	/**
+	 * Runs A* from start and leaves the results in place for getState, getG and getParent.
+	 *
+	 * @param start the start state
+	 * @param goal decides which states end the search
+	 * @param expander supplies each state's successors
+	 * @param heuristic an admissible estimate of the remaining cost
+	 * @return the id of the goal state that was reached, or -1 if none is reachable
+	 */
+	public int run(long start, Goal goal, Expander expander, Heuristic heuristic) {
+		return run(start, goal, (state, out, costs) -> {
+			int count = expander.expand(state, out);
+			Arrays.fill(costs, 0, count, 1);
+			return count;
+		}, heuristic, GridSearch.MAX_SUCCESSORS);
+	}
+
+	/**
+	 * Runs A* with weighted moves from start and leaves the results in place for
+	 * getState, getG and getParent.
+	 *
+	 * @param start the start state
+	 * @param goal decides which states end the search
+	 * @param expander supplies each state's successors and their costs
+	 * @param heuristic an admissible, consistent estimate of the remaining cost
+	 * @param maxSuccessors the most successors expander writes for one state
+	 * @return the id of the goal state that was reached, or -1 if none is reachable
+	 */
+	public int run(long start, Goal goal, WeightedExpander expander, Heuristic heuristic, int maxSuccessors) {
+		if (successors.length < maxSuccessors) {
+			successors = new long[maxSuccessors];
+			costs = new int[maxSuccessors];
+		}
+		table.clear();
+		open.clear();
+		expanded = 0;
+		limitReached = false;
+
+		int startId = reach(start);
+		gScore[startId] = 0;
+		parent[startId] = -1;
+		open.push(heuristic.estimate(start), startId);
+
+		while (!open.isEmpty()) {
+			int current = open.pop();
+			if (closed[current]) {
+				continue;
+			}
+			long state = table.get(current);
+			if (goal.isGoal(state)) {
+				return current;
+			}
+			if (expanded == expansionLimit) {
+				limitReached = true;
+				return -1;
+			}
+			closed[current] = true;
+			expanded++;
+
+			int count = expander.expand(state, successors, costs);
+			for (int i = 0; i < count; i++) {
+				int tentativeG = gScore[current] + costs[i];
+				int before = table.size();
+				int next = reach(successors[i]);
+				if (closed[next]) {
+					continue;
+				}
+				if (next == before || tentativeG < gScore[next]) {
+					gScore[next] = tentativeG;
+					parent[next] = current;
+					open.push(tentativeG + heuristic.estimate(successors[i]), next);
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Rebuilds the path from the last search's start to a reached state.
+	 * @param id the id of a state reached by the last search
+	 * @return the ids of the states from the start to id inclusive
+	 */
+	public int[] pathTo(int id) {
+		int length = 0;
+		for (int n = id; n >= 0; n = parent[n]) {
+			length++;
+		}
+		int[] path = new int[length];
+		for (int n = id, i = length - 1; n >= 0; n = parent[n], i--) {
+			path[i] = n;
+		}
+		return path;
+	}
+
+	/** @return the number of states reached by the last search; their ids run from 0 to size - 1 */
+	public int size() {
+		return table.size();
+	}
+
+	/**
+	 * @param id the id of a state reached by the last search
+	 * @return the packed state
+	 */
+	public long getState(int id) {
+		return table.get(id);
+	}
+
+	/**
+	 * @param id the id of a state reached by the last search
+	 * @return the state's g-score
+	 */
+	public int getG(int id) {
+		return gScore[id];
+	}
+
+	/**
+	 * @param id the id of a state reached by the last search
+	 * @return the id of the state's parent, or -1 for the start
+	 */
+	public int getParent(int id) {
+		return parent[id];
+	}
+
+	/** @return the number of states expanded by the last search */
+	public int getExpanded() {
+		return expanded;
+	}
+
+	/** Adds a state to the table, growing the per-state arrays and opening it if it is new. */
+	private int reach(long state) {
+		int before = table.size();
+		int id = table.add(state);
+		if (id == before) {
+			if (id == gScore.length) {
+				int length = gScore.length * 2;
+				gScore = Arrays.copyOf(gScore, length);
+				parent = Arrays.copyOf(parent, length);
+				closed = Arrays.copyOf(closed, length);
+			}
+			closed[id] = false;
+		}
+		return id;
+	}
+}
@@ -0,0 +1,112 @@
+package edu.ncsu.csc411.ps06.agent;
+
+import java.util.Arrays;
+
+/**
+ * Numbers search states packed into primitive longs. Each distinct state is
+ * given the next id, 0, 1, 2, ..., so per-state data such as g-scores and
+ * parents can be kept in plain arrays indexed by id, and an id stays valid
+ * as the table grows.
+ *
+ * The table is open-addressed with linear probing over an int array of
+ * ids, so neither a lookup nor an insert allocates or boxes. Slots are
+ * chosen by Fibonacci hashing, which spreads the bit fields of a packed
+ * state across the table.
+ */
+public class StateTable {
+	/** the state of each id */
+	private long[] states;
+	/** id + 1 of the state in each slot, or 0 for an empty slot */
+	private int[] slots;
+	/** the number of states in the table */
+	private int size;
+	/** 64 minus the log2 of the slot count */
+	private int shift;
+
+	/** Creates an empty table. */
+	public StateTable() {
+		this.states = new long[64];
+		this.slots = new int[128];
+		this.shift = Long.SIZE - 7;
+	}
+
+	/**
+	 * Finds a state's id, adding the state if it is new.
+	 * @param state the packed state
+	 * @return the state's id
+	 */
+	public int add(long state) {
+		int mask = slots.length - 1;
+		for (int slot = slot(state); ; slot = (slot + 1) & mask) {
+			int id = slots[slot] - 1;
+			if (id < 0) {
+				if (size == states.length) {
+					states = Arrays.copyOf(states, size * 2);
+				}
+				states[size] = state;
+				slots[slot] = ++size;
+				// Keep the table at most half full so probe runs stay short
+				if (2 * size > slots.length) {
+					rehash();
+				}
+				return size - 1;
+			}
+			if (states[id] == state) {
+				return id;
+			}
+		}
+	}
+
+	/**
+	 * @param state the packed state
+	 * @return the state's id, or -1 if it is not in the table
+	 */
+	public int find(long state) {
+		int mask = slots.length - 1;
+		for (int slot = slot(state); ; slot = (slot + 1) & mask) {
+			int id = slots[slot] - 1;
+			if (id < 0) {
+				return -1;
+			} else if (states[id] == state) {
+				return id;
+			}
+		}
+	}
+
+	/**
+	 * @param id an id returned by add
+	 * @return the state with that id
+	 */
+	public long get(int id) {
+		return states[id];
+	}
+
+	/** @return the number of states in the table; ids run from 0 to size - 1 */
+	public int size() {
+		return size;
+	}
+
+	/** Removes every state, keeping the arrays for reuse. */
+	public void clear() {
+		Arrays.fill(slots, 0);
+		size = 0;
+	}
+
+	/** Doubles the slot array and reinserts every state. */
+	private void rehash() {
+		slots = new int[slots.length * 2];
+		shift--;
+		int mask = slots.length - 1;
+		for (int id = 0; id < size; id++) {
+			int slot = slot(states[id]);
+			while (slots[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			slots[slot] = id + 1;
+		}
+	}
+
+	private int slot(long state) {
+		return (int) ((state * 0x9E3779B97F4A7C15L) >>> shift);
+	}
+}
@@ -0,0 +1,170 @@
+package edu.ncsu.csc411.ps06.agent;
+
+import java.util.Arrays;
+
+import edu.ncsu.csc411.ps06.environment.Environment;
+import edu.ncsu.csc411.ps06.environment.TileStatus;
+
+/**
+ * An admissible estimate of the steps needed to collect a set of chips and
+ * then reach the portal. Any such route leaves the robot's tile for one of
+ * the chips and then passes through every other chip and the portal, so it
+ * is at least the distance to the nearest chip plus the weight of a minimum
+ * spanning tree over the chips and the portal.
+ *
+ * Distances come from a breadth-first search out of each chip and the
+ * portal in which only walls and water block, as in Landmarks, so they
+ * never exceed the true number of steps. Only the distances to the chips,
+ * the portal, and the tiles an estimate may start from are kept, so the
+ * table stays small however large the map is. The spanning tree depends
+ * only on which chips are left, so its weight is computed once per set of
+ * chips and kept in a table keyed by the chip mask.
+ */
+public class TourBound {
+	private final Environment env;
+	private final int cells;
+	/** whether each tile is neither wall nor water, which never changes */
+	private final boolean[] passable;
+	/** reused buffers for the breadth-first searches, by tile */
+	private final int[] dist, queue;
+	/** the number of chips, and the index of the portal in sources if there is one */
+	private int chips;
+	/** the number of points the spanning tree connects: the chips and maybe the portal */
+	private int points;
+	/** the number of tiles distances are kept for: the points, then the starts */
+	private int targets;
+	/** the distance from each point to each target, point-major */
+	private int[] between = new int[0];
+	/** the sets of remaining chips seen so far, by mask */
+	private final StateTable trees = new StateTable();
+	/** the weight of the spanning tree for each set in trees, by id */
+	private int[] weights = new int[64];
+
+	/**
+	 * Prepares to measure distances on env. Call measure before estimating.
+	 * @param env the environment to measure
+	 */
+	public TourBound(Environment env) {
+		this.env = env;
+		int cols = env.getCols();
+		this.cells = env.getRows() * cols;
+		this.passable = new boolean[cells];
+		for (int cell = 0; cell < cells; cell++) {
+			TileStatus status = env.getTiles().get(env.getPosition(cell / cols, cell % cols)).getStatus();
+			passable[cell] = status != TileStatus.WALL && status != TileStatus.WATER;
+		}
+		this.dist = new int[cells];
+		this.queue = new int[cells];
+	}
+
+	/**
+	 * Measures the distances between the chips, the portal, and the start tiles,
+	 * replacing the ones measured before.
+	 * @param chipCells the cell index of each chip, in the order of the chip mask
+	 * @param portal the cell index of the portal, or -1 to leave it out of the route
+	 * @param startCells the cell index of each tile an estimate may start from
+	 */
+	public void measure(int[] chipCells, int portal, int[] startCells) {
+		this.chips = chipCells.length;
+		this.points = portal >= 0 ? chips + 1 : chips;
+		this.targets = points + startCells.length;
+		int[] targetCells = Arrays.copyOf(chipCells, targets);
+		if (points > chips) {
+			targetCells[chips] = portal;
+		}
+		System.arraycopy(startCells, 0, targetCells, points, startCells.length);
+		if (between.length < points * targets) {
+			between = new int[points * targets];
+		}
+		for (int i = 0; i < points; i++) {
+			breadthFirst(targetCells[i]);
+			for (int t = 0; t < targets; t++) {
+				// Tiles that cannot be reached are given the tile count, which keeps sums
+				// finite; a route through such a tile does not exist, so the bound cannot mislead
+				int d = dist[targetCells[t]];
+				between[i * targets + t] = d < 0 ? cells : d;
+			}
+		}
+		trees.clear();
+	}
+
+	/**
+	 * Estimates the steps from a start tile through every remaining chip to the portal.
+	 * @param start the index of the robot's tile among the start tiles given to measure
+	 * @param remaining the mask of chips not yet collected
+	 * @return a lower bound on the number of steps
+	 */
+	public int estimate(int start, long remaining) {
+		int target = points + start;
+		if (remaining == 0) {
+			return points > chips ? between[chips * targets + target] : 0;
+		}
+		int nearest = Integer.MAX_VALUE;
+		for (long left = remaining; left != 0; left &= left - 1) {
+			nearest = Math.min(nearest, between[Long.numberOfTrailingZeros(left) * targets + target]);
+		}
+		return nearest + spanningTree(remaining);
+	}
+
+	/** @return the weight of a minimum spanning tree over the remaining chips and the portal */
+	private int spanningTree(long remaining) {
+		int before = trees.size();
+		int id = trees.add(remaining);
+		if (id < before) {
+			return weights[id];
+		}
+
+		// Prim's algorithm on the complete graph of points, which has at most 65 vertices
+		int[] vertices = new int[points];
+		int n = 0;
+		for (long left = remaining; left != 0; left &= left - 1) {
+			vertices[n++] = Long.numberOfTrailingZeros(left);
+		}
+		if (points > chips) {
+			vertices[n++] = chips;
+		}
+		int[] best = new int[n];
+		Arrays.fill(best, Integer.MAX_VALUE);
+		boolean[] inTree = new boolean[n];
+		int weight = 0;
+		int last = 0;
+		inTree[0] = true;
+		for (int added = 1; added < n; added++) {
+			int next = -1;
+			for (int v = 0; v < n; v++) {
+				if (inTree[v]) continue;
+				best[v] = Math.min(best[v], between[vertices[last] * targets + vertices[v]]);
+				if (next < 0 || best[v] < best[next]) {
+					next = v;
+				}
+			}
+			inTree[next] = true;
+			weight += best[next];
+			last = next;
+		}
+
+		if (id == weights.length) {
+			weights = Arrays.copyOf(weights, id * 2);
+		}
+		weights[id] = weight;
+		return weight;
+	}
+
+	/** Writes the distance from source to every tile into dist, or -1 where it cannot reach. */
+	private void breadthFirst(int source) {
+		Arrays.fill(dist, -1);
+		int head = 0, tail = 0;
+		dist[source] = 0;
+		queue[tail++] = source;
+		while (head < tail) {
+			int cell = queue[head++];
+			for (int direction = 0; direction < Environment.NUM_DIRECTIONS; direction++) {
+				int neighbor = env.getNeighborIndex(cell, direction);
+				if (neighbor >= 0 && passable[neighbor] && dist[neighbor] < 0) {
+					dist[neighbor] = dist[cell] + 1;
+					queue[tail++] = neighbor;
+				}
+			}
+		}
+	}
+}
@@ -1,6 +1,9 @@
 package edu.ncsu.csc411.ps06.environment;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -17,6 +20,15 @@ import edu.ncsu.csc411.ps06.agent.Robot;
  * DO NOT MODIFY.
  */
 public class Environment {
+  /** Direction indices for the allocation-free neighbor methods. */
+  public static final int ABOVE = 0;
+  public static final int BELOW = 1;
+  public static final int LEFT = 2;
+  public static final int RIGHT = 3;
+  public static final int NUM_DIRECTIONS = 4;
+  private static final int[] ROW_OFFSETS = {-1, 1, 0, 0};
+  private static final int[] COL_OFFSETS = {0, 0, -1, 1};
+
   private Position[][] positions;
   private Map<Position, Tile> tiles;
   private ArrayList<Robot> robots;
@@ -25,6 +37,12 @@ public class Environment {
   private int rows, cols;
   private Position target;
   private Map<TileStatus, ArrayList<Position>> envPositions;
+  /** the cell indices (row * cols + col) of each tracked TileStatus */
+  private Map<TileStatus, BitSet> positionSets;
+  /** the index of each cell in its TileStatus's envPositions list, or -1 */
+  private int[] listIndex;
+  private int remainingChips;
+  private Landmarks landmarks;
 
   /**
    * Calls Environment(int rows, int columns).
@@ -122,48 +140,48 @@ public class Environment {
 				case "WA": tiles.put(p, new Tile(TileStatus.WATER)); break;
 				case "CH": 
 					this.tiles.put(p, new Tile(TileStatus.CHIP));
-					this.envPositions.get(TileStatus.CHIP).add(p);
+					addToEnvironment(TileStatus.CHIP, p);
 					break;
 				case "PL": 
 					this.tiles.put(p, new Tile(TileStatus.GOAL));
-					this.envPositions.get(TileStatus.GOAL).add(p);
+					addToEnvironment(TileStatus.GOAL, p);
 					this.target = p;
 					break;
 				case "DP":
 					this.tiles.put(p, new Tile(TileStatus.DOOR_GOAL)); 
-					this.envPositions.get(TileStatus.DOOR_GOAL).add(p);
+					addToEnvironment(TileStatus.DOOR_GOAL, p);
 					break;
 				case "DG":
 					this.tiles.put(p, new Tile(TileStatus.DOOR_GREEN)); 
-					this.envPositions.get(TileStatus.DOOR_GREEN).add(p);
+					addToEnvironment(TileStatus.DOOR_GREEN, p);
 					break;
 				case "DY":
 					this.tiles.put(p, new Tile(TileStatus.DOOR_YELLOW)); 
-					this.envPositions.get(TileStatus.DOOR_YELLOW).add(p);
+					addToEnvironment(TileStatus.DOOR_YELLOW, p);
 					break;
 				case "DB":
 					this.tiles.put(p, new Tile(TileStatus.DOOR_BLUE)); 
-					this.envPositions.get(TileStatus.DOOR_BLUE).add(p);
+					addToEnvironment(TileStatus.DOOR_BLUE, p);
 					break;
 				case "DR":
 					this.tiles.put(p, new Tile(TileStatus.DOOR_RED)); 
-					this.envPositions.get(TileStatus.DOOR_RED).add(p);
+					addToEnvironment(TileStatus.DOOR_RED, p);
 					break;
 				case "KG": 
 					this.tiles.put(p, new Tile(TileStatus.KEY_GREEN));
-					this.envPositions.get(TileStatus.KEY_GREEN).add(p);
+					addToEnvironment(TileStatus.KEY_GREEN, p);
 					break;
 				case "KY": 
 					this.tiles.put(p, new Tile(TileStatus.KEY_YELLOW));
-					this.envPositions.get(TileStatus.KEY_YELLOW).add(p);
+					addToEnvironment(TileStatus.KEY_YELLOW, p);
 					break;
 				case "KB": 
 					this.tiles.put(p, new Tile(TileStatus.KEY_BLUE));
-					this.envPositions.get(TileStatus.KEY_BLUE).add(p);
+					addToEnvironment(TileStatus.KEY_BLUE, p);
 					break;
 				case "KR": 
 					this.tiles.put(p, new Tile(TileStatus.KEY_RED));
-					this.envPositions.get(TileStatus.KEY_RED).add(p);
+					addToEnvironment(TileStatus.KEY_RED, p);
 					break;
 				default: throw new IllegalArgumentException("Tile Not Found - " + tile);
 				}
@@ -173,17 +191,29 @@ public class Environment {
 
 	private void buildEnvPositionMap() {
 		this.envPositions = new HashMap<TileStatus, ArrayList<Position>>();
-		this.envPositions.put(TileStatus.CHIP, new ArrayList<Position>());
-		this.envPositions.put(TileStatus.GOAL, new ArrayList<Position>());
-		this.envPositions.put(TileStatus.KEY_BLUE, new ArrayList<Position>());
-		this.envPositions.put(TileStatus.KEY_GREEN, new ArrayList<Position>());
-		this.envPositions.put(TileStatus.KEY_RED, new ArrayList<Position>());
-		this.envPositions.put(TileStatus.KEY_YELLOW, new ArrayList<Position>());
-		this.envPositions.put(TileStatus.DOOR_BLUE, new ArrayList<Position>());
-		this.envPositions.put(TileStatus.DOOR_GREEN, new ArrayList<Position>());
-		this.envPositions.put(TileStatus.DOOR_RED, new ArrayList<Position>());
-		this.envPositions.put(TileStatus.DOOR_YELLOW, new ArrayList<Position>());
-		this.envPositions.put(TileStatus.DOOR_GOAL, new ArrayList<Position>());
+		this.positionSets = new EnumMap<TileStatus, BitSet>(TileStatus.class);
+		this.listIndex = new int[this.rows * this.cols];
+		Arrays.fill(this.listIndex, -1);
+		TileStatus[] tracked = {TileStatus.CHIP, TileStatus.GOAL,
+				TileStatus.KEY_BLUE, TileStatus.KEY_GREEN, TileStatus.KEY_RED, TileStatus.KEY_YELLOW,
+				TileStatus.DOOR_BLUE, TileStatus.DOOR_GREEN, TileStatus.DOOR_RED, TileStatus.DOOR_YELLOW,
+				TileStatus.DOOR_GOAL};
+		for (TileStatus status : tracked) {
+			this.envPositions.put(status, new ArrayList<Position>());
+			this.positionSets.put(status, new BitSet(this.rows * this.cols));
+		}
+	}
+
+	/* Records a tile parsed from the map in its position set and list. Positions
+	 * are added in row-major order, though removals do not keep that order. */
+	private void addToEnvironment(TileStatus tile, Position p) {
+		int cell = p.getRow() * this.cols + p.getCol();
+		ArrayList<Position> list = this.envPositions.get(tile);
+		this.positionSets.get(tile).set(cell);
+		this.listIndex[cell] = list.size();
+		list.add(p);
+		if (tile == TileStatus.CHIP)
+			this.remainingChips++;
 	}
 
 	/* Traditional Getters */
@@ -194,6 +224,7 @@ public class Environment {
 	public ArrayList<Robot> getRobots() { return this.robots; }
 	public int getRows() { return this.rows; }
 	public int getCols() { return this.cols; }
+	public Position getPosition(int row, int col) { return this.positions[row][col]; }
 
 	protected void addRobot(Robot robot, Position p) {
 		this.robotPositions.put(robot, p);
@@ -259,6 +290,72 @@ public class Environment {
 		return neighbors;
 	}
 	
+	/**
+   * Allocation-free alternative to getNeighborTiles for search loops.
+   * @param robot - the robot to center the method around
+   * @param direction - ABOVE, BELOW, LEFT or RIGHT
+   * @return the neighboring Tile, or null if it is outside the environment
+   */
+	public Tile getNeighborTile(Robot robot, int direction) {
+		Position neighbor = getNeighborPosition(getRobotPosition(robot), direction);
+		return neighbor == null ? null : tiles.get(neighbor);
+	}
+
+	/**
+   * Allocation-free alternative to getNeighborPositions for search loops.
+   * @param p - the Position to center this method call on
+   * @param direction - ABOVE, BELOW, LEFT or RIGHT
+   * @return the neighboring Position, or null if it is outside the environment
+   */
+	public Position getNeighborPosition(Position p, int direction) {
+		switch(direction) {
+		case ABOVE: return p.getAbove();
+		case BELOW: return p.getBelow();
+		case LEFT: return p.getLeft();
+		case RIGHT: return p.getRight();
+		default: return null;
+		}
+	}
+
+	/**
+   * Returns the cell index (row * cols + col) of a cell's neighbor.
+   * @param cell - the cell index to center this method call on
+   * @param direction - ABOVE, BELOW, LEFT or RIGHT
+   * @return the neighbor's cell index, or -1 if it is outside the environment
+   */
+	public int getNeighborIndex(int cell, int direction) {
+		int row = cell / this.cols + ROW_OFFSETS[direction];
+		int col = cell % this.cols + COL_OFFSETS[direction];
+		if (row < 0 || row >= this.rows || col < 0 || col >= this.cols) {
+			return -1;
+		}
+		return row * this.cols + col;
+	}
+	
+	/**
+   * Returns the distances from a few landmark tiles to every tile, for the
+   * ALT heuristic. Walls and water never change, so the table is computed
+   * on the first call and shared by every robot in this Environment.
+   * @return the shared landmark table
+   */
+	public Landmarks getLandmarks() {
+		if (this.landmarks == null) {
+			this.landmarks = new Landmarks(this, Landmarks.DEFAULT_COUNT);
+		}
+		return this.landmarks;
+	}
+	
+	/**
+   * Constant-time check of whether a Position holds a TileStatus of interest.
+   * @param status - a chip, key, door or portal TileStatus
+   * @param p - the Position to check
+   * @return true if p currently holds status
+   */
+	public boolean hasTileAt(TileStatus status, Position p) {
+		BitSet cells = this.positionSets.get(status);
+		return cells != null && cells.get(p.getRow() * this.cols + p.getCol());
+	}
+	
 	/** 
    * Returns the Position of the DOOR_GOAL tile.
    * @return the Goal Position
@@ -268,19 +365,12 @@ public class Environment {
 	}
 	
 	/** 
-   * Counts number of chips remaining.
+   * Returns the number of chips remaining, which is kept up to date as chips
+   * are collected rather than counted from the grid.
    * @return an integer
    */
 	public int getNumRemainingChips() {
-		int count = 0;
-		for (int row = 0; row < rows; row++) {
-			for (int col = 0; col < cols; col++) {
-				Position p = positions[row][col];
-				if (this.tiles.get(p).getStatus() == TileStatus.CHIP)
-					count++;
-			}
-		}
-		return count;
+		return this.remainingChips;
 	}
 
 	/** 
@@ -411,7 +501,20 @@ public class Environment {
 
 	private void removeFromEvironment(TileStatus tile, Position robotPos) {
 		this.tiles.put(robotPos, new Tile(TileStatus.BLANK));
-		this.envPositions.get(tile).remove(robotPos);
+		// Moving the last Position into the removed one's slot keeps the removal constant
+		// time and the list an agent may hold up to date
+		int cell = robotPos.getRow() * this.cols + robotPos.getCol();
+		ArrayList<Position> list = this.envPositions.get(tile);
+		Position last = list.remove(list.size() - 1);
+		if (last != robotPos) {
+			int index = this.listIndex[cell];
+			list.set(index, last);
+			this.listIndex[last.getRow() * this.cols + last.getCol()] = index;
+		}
+		this.listIndex[cell] = -1;
+		this.positionSets.get(tile).clear(cell);
+		if (tile == TileStatus.CHIP)
+			this.remainingChips--;
 		//System.out.println("UPDATED " + tile + ": ");
 		//System.out.println(this.getEnvironmentPositions().get(tile));
 	}
@@ -0,0 +1,198 @@
+package edu.ncsu.csc411.ps06.environment;
+
+import java.util.Arrays;
+
+/**
+ * Precomputed distances from a few landmark tiles to every tile, used for
+ * the ALT (A*, Landmarks, Triangle inequality) heuristic. For any landmark L
+ * and tiles a and b, dist(a, b) >= |dist(L, a) - dist(L, b)|, so the largest
+ * such difference over all landmarks is an admissible, consistent estimate
+ * that follows walls far better than the Manhattan distance.
+ *
+ * Only walls and water block the searches. Doors, keys and chips are
+ * treated as open, so the distances belong to a map with every door
+ * unlocked; they never exceed the true number of steps, and they stay valid
+ * as keys, chips and doors are removed during the simulation.
+ *
+ * Landmarks are chosen by farthest-point selection: each new landmark is the
+ * reachable tile farthest from the landmarks already chosen, which places
+ * them at the ends of corridors and in opposite corners of rooms. The
+ * distances are stored in one flat array, landmark-major, indexed by
+ * landmark * rows * cols + row * cols + col. The array holds chars, half the
+ * size of ints, with Character.MAX_VALUE for unreachable tiles; only a map
+ * whose distances do not fit below that falls back to ints.
+ */
+public class Landmarks {
+	/** the number of landmarks an Environment chooses for its shared table */
+	public static final int DEFAULT_COUNT = 8;
+	/** the stored distance to a tile that cannot be reached, when distances are chars */
+	private static final char NARROW_UNREACHABLE = Character.MAX_VALUE;
+	/** the distance to a tile that cannot be reached from a landmark */
+	private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+	private final int cells;
+	private final int count;
+	private final int[] landmarks;
+	/** the distances as chars, or null if some distance does not fit */
+	private final char[] narrow;
+	/** the distances as ints, or null if they are stored in narrow */
+	private final int[] wide;
+
+	/**
+	 * Chooses landmarks among the tiles of env that are not walls or water and runs a breadth-first
+	 * search from each of them.
+	 * @param env the environment to measure
+	 * @param count the maximum number of landmarks to choose
+	 */
+	public Landmarks(Environment env, int count) {
+		int rows = env.getRows();
+		int cols = env.getCols();
+		this.cells = rows * cols;
+		boolean[] passable = new boolean[cells];
+		int first = -1;
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++) {
+				TileStatus status = env.getTileStatus(env.getPosition(row, col));
+				passable[row * cols + col] = status != TileStatus.WALL && status != TileStatus.WATER;
+				if (first < 0 && passable[row * cols + col]) {
+					first = row * cols + col;
+				}
+			}
+		}
+
+		char[] narrowTable = new char[Math.max(count, 0) * cells];
+		int[] wideTable = null;
+		int[] chosen = new int[Math.max(count, 0)];
+		int[] nearest = new int[cells];
+		int[] dist = new int[cells];
+		int[] queue = new int[cells];
+		int found = 0;
+		if (first >= 0 && count > 0) {
+			// Seed with the tile farthest from an arbitrary one, then keep adding the
+			// tile farthest from every landmark so far
+			breadthFirst(first, passable, rows, cols, nearest, queue);
+			while (found < count) {
+				int next = farthest(nearest);
+				if (found > 0 && nearest[next] == 0) {
+					break; // every reachable tile is already a landmark
+				}
+				chosen[found] = next;
+				int longest = breadthFirst(next, passable, rows, cols, dist, queue);
+				if (wideTable == null && longest >= NARROW_UNREACHABLE) {
+					// Widen the landmarks stored so far and keep ints from here on
+					wideTable = new int[count * cells];
+					for (int i = 0; i < found * cells; i++) {
+						wideTable[i] = narrowTable[i] == NARROW_UNREACHABLE ? UNREACHABLE : narrowTable[i];
+					}
+					narrowTable = null;
+				}
+				for (int cell = 0; cell < cells; cell++) {
+					int d = dist[cell];
+					if (wideTable != null) {
+						wideTable[found * cells + cell] = d;
+					} else {
+						narrowTable[found * cells + cell] = d == UNREACHABLE ? NARROW_UNREACHABLE : (char) d;
+					}
+					if (found == 0 || d < nearest[cell]) {
+						nearest[cell] = d;
+					}
+				}
+				found++;
+			}
+		}
+		this.count = found;
+		this.landmarks = Arrays.copyOf(chosen, found);
+		// Trim only when fewer landmarks were found, to avoid a second copy of the table
+		this.narrow = narrowTable == null || found == count ? narrowTable : Arrays.copyOf(narrowTable, found * cells);
+		this.wide = wideTable == null || found == count ? wideTable : Arrays.copyOf(wideTable, found * cells);
+	}
+
+	/**
+	 * Estimates the number of steps between two tiles from the triangle inequality.
+	 * @param a the first tile's index, row * cols + col
+	 * @param b the second tile's index, row * cols + col
+	 * @return a lower bound on the number of steps from a to b, or 0 if no
+	 * landmark reaches both tiles
+	 */
+	public int lowerBound(int a, int b) {
+		int bound = 0;
+		if (narrow != null) {
+			for (int base = 0; base < narrow.length; base += cells) {
+				char da = narrow[base + a];
+				char db = narrow[base + b];
+				if (da != NARROW_UNREACHABLE && db != NARROW_UNREACHABLE) {
+					bound = Math.max(bound, Math.abs(da - db));
+				}
+			}
+		} else {
+			for (int base = 0; base < wide.length; base += cells) {
+				int da = wide[base + a];
+				int db = wide[base + b];
+				if (da != UNREACHABLE && db != UNREACHABLE) {
+					bound = Math.max(bound, Math.abs(da - db));
+				}
+			}
+		}
+		return bound;
+	}
+
+	/** @return the number of landmarks chosen, at most the count requested */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * @param i the landmark, from 0 to getCount() - 1
+	 * @return the landmark's tile index, row * cols + col
+	 */
+	public int getLandmark(int i) {
+		return landmarks[i];
+	}
+
+	/** Finds the reachable tile with the largest distance. */
+	private int farthest(int[] nearest) {
+		int best = -1;
+		for (int cell = 0; cell < cells; cell++) {
+			int d = nearest[cell];
+			if (d != UNREACHABLE && (best < 0 || d > nearest[best])) {
+				best = cell;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Writes the distance from source to every tile into dist.
+	 * @return the largest distance written
+	 */
+	private static int breadthFirst(int source, boolean[] passable, int rows, int cols,
+			int[] dist, int[] queue) {
+		Arrays.fill(dist, UNREACHABLE);
+		int head = 0, tail = 0;
+		dist[source] = 0;
+		queue[tail++] = source;
+		while (head < tail) {
+			int cell = queue[head++];
+			int row = cell / cols, col = cell % cols;
+			int next = dist[cell] + 1;
+			if (row > 0 && passable[cell - cols] && dist[cell - cols] == UNREACHABLE) {
+				dist[cell - cols] = next;
+				queue[tail++] = cell - cols;
+			}
+			if (row < rows - 1 && passable[cell + cols] && dist[cell + cols] == UNREACHABLE) {
+				dist[cell + cols] = next;
+				queue[tail++] = cell + cols;
+			}
+			if (col > 0 && passable[cell - 1] && dist[cell - 1] == UNREACHABLE) {
+				dist[cell - 1] = next;
+				queue[tail++] = cell - 1;
+			}
+			if (col < cols - 1 && passable[cell + 1] && dist[cell + 1] == UNREACHABLE) {
+				dist[cell + 1] = next;
+				queue[tail++] = cell + 1;
+			}
+		}
+		// The queue holds tiles in order of distance, so the last one is the farthest
+		return dist[queue[tail - 1]];
+	}
+}
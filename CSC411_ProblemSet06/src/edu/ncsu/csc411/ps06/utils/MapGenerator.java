@@ -0,0 +1,477 @@
+package edu.ncsu.csc411.ps06.utils;
+
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generates maps in the format read by MapManager.loadMap: one line per
+ * row of space-separated two-letter codes, such as ST for the start, WL
+ * and WA for walls and water, CH for chips, KB/DB for a blue key and door,
+ * and PL for the portal behind its DP goal door.
+ *
+ * The layout is either an open room with randomly scattered walls or a maze
+ * carved by a depth-first search, and any tile the start cannot reach is
+ * walled in. Every map is solvable: doors are opened one at a time in the
+ * order a search from the start discovers them, and each door's key is
+ * placed in the area already reachable before that door is opened. Chips
+ * are placed anywhere reachable without passing the goal door. The same
+ * seed and settings always produce the same map.
+ */
+public class MapGenerator {
+	/** the largest number of rows or columns a map may have */
+	public static final int MAX_SIZE = 2000;
+	/** the codes of the four door colors, and of their keys in the same order */
+	private static final String[] DOORS = {"DB", "DR", "DG", "DY"};
+	private static final String[] KEYS = {"KB", "KR", "KG", "KY"};
+	/** attempts at picking a free tile at random before scanning for one */
+	private static final int RANDOM_TRIES = 64;
+
+	private final Random random;
+	private double wallDensity = 0.2;
+	private boolean maze;
+	private double loopChance;
+	private double waterChance;
+	private int doors = 4;
+	private int chips = 8;
+
+	/**
+	 * Creates a generator.
+	 * @param seed the seed for every random choice
+	 */
+	public MapGenerator(long seed) {
+		this.random = new Random(seed);
+	}
+
+	/**
+	 * Sets the chance that each tile of an open map is a wall. Ignored for mazes.
+	 * @param wallDensity a probability between 0 and 1; the default is 0.2
+	 */
+	public void setWallDensity(double wallDensity) {
+		this.wallDensity = wallDensity;
+	}
+
+	/**
+	 * Selects between open maps and mazes of one-tile corridors.
+	 * @param maze true to carve a maze, false for scattered walls
+	 */
+	public void setMaze(boolean maze) {
+		this.maze = maze;
+	}
+
+	/**
+	 * Sets the chance that each wall separating two maze corridors is removed.
+	 * A perfect maze has exactly one path between any two tiles; removing
+	 * walls adds loops. Ignored for open maps.
+	 * @param loopChance a probability between 0 and 1; the default is 0
+	 */
+	public void setLoopChance(double loopChance) {
+		this.loopChance = loopChance;
+	}
+
+	/**
+	 * Sets the chance that each obstacle is water instead of a wall.
+	 * @param waterChance a probability between 0 and 1; the default is 0
+	 */
+	public void setWaterChance(double waterChance) {
+		this.waterChance = waterChance;
+	}
+
+	/**
+	 * Sets the number of colored doors, each with one matching key. Generating
+	 * fails if the map runs out of corridor tiles or room for keys.
+	 * @param doors the number of doors; the default is 4
+	 */
+	public void setDoors(int doors) {
+		this.doors = doors;
+	}
+
+	/**
+	 * Sets the number of chips. Generating fails if the map runs out of room.
+	 * @param chips the number of chips; the default is 8
+	 */
+	public void setChips(int chips) {
+		this.chips = chips;
+	}
+
+	/**
+	 * Generates a map.
+	 * @param rows the number of rows, from 1 to MAX_SIZE
+	 * @param cols the number of columns, from 1 to MAX_SIZE
+	 * @return the map's codes, indexed [row][col]
+	 * @throws IllegalArgumentException if the size is out of range, leaves the start
+	 *         no reachable tile to put the portal on, as for a 1x1 map or a maze
+	 *         narrower than 3 tiles both ways, or has no room for the requested
+	 *         doors, keys, or chips
+	 */
+	public String[][] generate(int rows, int cols) {
+		if (rows < 1 || rows > MAX_SIZE || cols < 1 || cols > MAX_SIZE) {
+			throw new IllegalArgumentException("Map size out of range - " + rows + "x" + cols);
+		}
+		boolean[] open = maze ? carveMaze(rows, cols) : scatterWalls(rows, cols);
+		int[] distances = wallUnreachable(open, rows, cols);
+		int cells = rows * cols;
+
+		String[] codes = new String[cells];
+		for (int cell = 0; cell < cells; cell++) {
+			codes[cell] = open[cell] ? "BL" : random.nextDouble() < waterChance ? "WA" : "WL";
+		}
+		codes[0] = "ST";
+
+		// The portal goes on the tile farthest from the start, behind a goal door
+		// on the tile before it
+		int portal = 0;
+		for (int cell = 0; cell < cells; cell++) {
+			if (distances[cell] > distances[portal]) {
+				portal = cell;
+			}
+		}
+		if (portal == 0) {
+			throw new IllegalArgumentException("No room for a portal - " + rows + "x" + cols);
+		}
+		codes[portal] = "PL";
+		int before = neighborAtDistance(portal, distances[portal] - 1, distances, rows, cols);
+		if (before > 0) {
+			codes[before] = "DP";
+		}
+
+		placeDoors(codes, open, rows, cols);
+		int[] region = new int[cells];
+		int size = openDoors(codes, region, rows, cols);
+		for (int i = 0; i < chips; i++) {
+			int cell = freeTile(codes, region, size);
+			if (cell < 0) {
+				throw new IllegalArgumentException("No room for " + chips + " chips - " + rows + "x" + cols);
+			}
+			codes[cell] = "CH";
+		}
+
+		String[][] map = new String[rows][cols];
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++) {
+				map[row][col] = codes[row * cols + col];
+			}
+		}
+		return map;
+	}
+
+	/** Finds a neighbor of cell at the given distance from the start. */
+	private static int neighborAtDistance(int cell, int distance, int[] distances, int rows, int cols) {
+		for (int direction = 0; direction < 4; direction++) {
+			int next = neighbor(cell, direction, rows, cols);
+			if (next >= 0 && distances[next] == distance) {
+				return next;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param direction 0 to 3 for above, below, left and right
+	 * @return the index of cell's neighbor, or -1 if it is outside the map
+	 */
+	private static int neighbor(int cell, int direction, int rows, int cols) {
+		int row = cell / cols, col = cell % cols;
+		switch (direction) {
+		case 0: return row > 0 ? cell - cols : -1;
+		case 1: return row < rows - 1 ? cell + cols : -1;
+		case 2: return col > 0 ? cell - 1 : -1;
+		default: return col < cols - 1 ? cell + 1 : -1;
+		}
+	}
+
+	/**
+	 * Puts colored doors on random corridor tiles: blank tiles whose only open
+	 * neighbors are on opposite sides, so the door blocks the corridor.
+	 */
+	private void placeDoors(String[] codes, boolean[] open, int rows, int cols) {
+		int[] candidates = new int[codes.length];
+		int count = 0;
+		for (int cell = 0; cell < codes.length; cell++) {
+			if (!codes[cell].equals("BL")) {
+				continue;
+			}
+			int row = cell / cols, col = cell % cols;
+			boolean above = row > 0 && open[cell - cols];
+			boolean below = row < rows - 1 && open[cell + cols];
+			boolean left = col > 0 && open[cell - 1];
+			boolean right = col < cols - 1 && open[cell + 1];
+			if ((above && below && !left && !right) || (left && right && !above && !below)) {
+				candidates[count++] = cell;
+			}
+		}
+		if (count < doors) {
+			throw new IllegalArgumentException("No room for " + doors + " doors - " + rows + "x" + cols);
+		}
+		for (int i = 0; i < doors; i++) {
+			int pick = i + random.nextInt(count - i);
+			int cell = candidates[pick];
+			candidates[pick] = candidates[i];
+			codes[cell] = DOORS[random.nextInt(DOORS.length)];
+		}
+	}
+
+	/**
+	 * Grows the area reachable from the start, treating doors as walls, and
+	 * opens the doors in the order they are found. Each door's key goes on a
+	 * free tile of the area reachable before it opens. The goal door is never
+	 * opened.
+	 * @param region receives the reachable tiles
+	 * @return the number of reachable tiles
+	 */
+	private int openDoors(String[] codes, int[] region, int rows, int cols) {
+		boolean[] reached = new boolean[codes.length];
+		int[] found = new int[codes.length];
+		int head = 0, tail = 0, nextDoor = 0, doorCount = 0;
+		reached[0] = true;
+		region[tail++] = 0;
+		while (true) {
+			while (head < tail) {
+				int cell = region[head++];
+				for (int direction = 0; direction < 4; direction++) {
+					int next = neighbor(cell, direction, rows, cols);
+					if (next < 0 || reached[next]) {
+						continue;
+					}
+					String code = codes[next];
+					if (code.startsWith("D") && !code.equals("DP")) {
+						reached[next] = true;
+						found[doorCount++] = next;
+					} else if (!code.equals("WL") && !code.equals("WA") && !code.equals("DP")) {
+						reached[next] = true;
+						region[tail++] = next;
+					}
+				}
+			}
+			if (nextDoor == doorCount) {
+				return tail;
+			}
+			int door = found[nextDoor++];
+			int key = freeTile(codes, region, tail);
+			if (key < 0) {
+				throw new IllegalArgumentException("No room for the key of door " + nextDoor + " - " + rows + "x" + cols);
+			}
+			codes[key] = KEYS[Arrays.asList(DOORS).indexOf(codes[door])];
+			region[tail++] = door;
+		}
+	}
+
+	/**
+	 * Picks a random blank tile among the first size entries of region.
+	 * @return the tile, or -1 if none is blank
+	 */
+	private int freeTile(String[] codes, int[] region, int size) {
+		for (int i = 0; i < RANDOM_TRIES && size > 0; i++) {
+			int cell = region[random.nextInt(size)];
+			if (codes[cell].equals("BL")) {
+				return cell;
+			}
+		}
+		for (int i = 0; i < size; i++) {
+			if (codes[region[i]].equals("BL")) {
+				return region[i];
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Opens every tile except a random fraction of walls, keeping the start open
+	 * and connected to the largest open area.
+	 */
+	private boolean[] scatterWalls(int rows, int cols) {
+		boolean[] open = new boolean[rows * cols];
+		for (int cell = 0; cell < open.length; cell++) {
+			open[cell] = cell == 0 || random.nextDouble() >= wallDensity;
+		}
+		connectStart(open, rows, cols);
+		return open;
+	}
+
+	/**
+	 * Carves a passage from the start to the largest group of connected open
+	 * tiles, unless the start already belongs to it, so that scattered walls
+	 * cannot shut the start into a small pocket before wallUnreachable walls off
+	 * everything else. The passage runs down the first column to the row of the
+	 * group's tile nearest the start, then along that row.
+	 */
+	private static void connectStart(boolean[] open, int rows, int cols) {
+		int[] group = new int[open.length];
+		int[] queue = new int[open.length];
+		int groups = 0, largest = 0, largestSize = 0;
+		for (int first = 0; first < open.length; first++) {
+			if (!open[first] || group[first] != 0) {
+				continue;
+			}
+			group[first] = ++groups;
+			int head = 0, tail = 0;
+			queue[tail++] = first;
+			while (head < tail) {
+				int cell = queue[head++];
+				for (int direction = 0; direction < 4; direction++) {
+					int next = neighbor(cell, direction, rows, cols);
+					if (next >= 0 && open[next] && group[next] == 0) {
+						group[next] = groups;
+						queue[tail++] = next;
+					}
+				}
+			}
+			if (tail > largestSize) {
+				largest = groups;
+				largestSize = tail;
+			}
+		}
+		if (group[0] == largest) {
+			return;
+		}
+		int nearest = -1;
+		for (int cell = 0; cell < open.length; cell++) {
+			if (group[cell] == largest && (nearest < 0
+					|| cell / cols + cell % cols < nearest / cols + nearest % cols)) {
+				nearest = cell;
+			}
+		}
+		int row = nearest / cols, col = nearest % cols;
+		for (int r = 0; r <= row; r++) {
+			open[r * cols] = true;
+		}
+		for (int c = 0; c <= col; c++) {
+			open[row * cols + c] = true;
+		}
+	}
+
+	/**
+	 * Carves a maze whose corridors run through the tiles with even rows and
+	 * columns, using a depth-first search with an explicit stack.
+	 */
+	private boolean[] carveMaze(int rows, int cols) {
+		boolean[] open = new boolean[rows * cols];
+		int[] stack = new int[(rows / 2 + 1) * (cols / 2 + 1)];
+		int[] choices = new int[4];
+		int size = 0;
+		open[0] = true;
+		stack[size++] = 0;
+		while (size > 0) {
+			int cell = stack[size - 1];
+			int row = cell / cols, col = cell % cols;
+			int count = 0;
+			if (row >= 2 && !open[cell - 2 * cols]) choices[count++] = -cols;
+			if (row + 2 < rows && !open[cell + 2 * cols]) choices[count++] = cols;
+			if (col >= 2 && !open[cell - 2]) choices[count++] = -1;
+			if (col + 2 < cols && !open[cell + 2]) choices[count++] = 1;
+			if (count == 0) {
+				size--;
+				continue;
+			}
+			int step = choices[random.nextInt(count)];
+			open[cell + step] = true;
+			open[cell + 2 * step] = true;
+			stack[size++] = cell + 2 * step;
+		}
+
+		// Knock out walls that sit between two corridors to add loops
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++) {
+				int cell = row * cols + col;
+				if (open[cell] || (row + col) % 2 == 0) {
+					continue;
+				}
+				boolean vertical = row % 2 == 1 && col % 2 == 0 && row + 1 < rows;
+				boolean horizontal = row % 2 == 0 && col % 2 == 1 && col + 1 < cols;
+				if ((vertical || horizontal) && random.nextDouble() < loopChance) {
+					open[cell] = true;
+				}
+			}
+		}
+		return open;
+	}
+
+	/**
+	 * Turns every open tile the start cannot reach into a wall.
+	 * @return the number of steps from the start to every tile, or -1 for walls
+	 */
+	private static int[] wallUnreachable(boolean[] open, int rows, int cols) {
+		int[] distances = new int[rows * cols];
+		Arrays.fill(distances, -1);
+		int[] queue = new int[rows * cols];
+		int head = 0, tail = 0;
+		distances[0] = 0;
+		queue[tail++] = 0;
+		while (head < tail) {
+			int cell = queue[head++];
+			int row = cell / cols, col = cell % cols;
+			int next = distances[cell] + 1;
+			if (row > 0 && open[cell - cols] && distances[cell - cols] < 0) {
+				distances[cell - cols] = next;
+				queue[tail++] = cell - cols;
+			}
+			if (row < rows - 1 && open[cell + cols] && distances[cell + cols] < 0) {
+				distances[cell + cols] = next;
+				queue[tail++] = cell + cols;
+			}
+			if (col > 0 && open[cell - 1] && distances[cell - 1] < 0) {
+				distances[cell - 1] = next;
+				queue[tail++] = cell - 1;
+			}
+			if (col < cols - 1 && open[cell + 1] && distances[cell + 1] < 0) {
+				distances[cell + 1] = next;
+				queue[tail++] = cell + 1;
+			}
+		}
+		for (int cell = 0; cell < open.length; cell++) {
+			open[cell] = distances[cell] >= 0;
+		}
+		return distances;
+	}
+
+	/**
+	 * Writes a map to a file that MapManager.loadMap can read.
+	 * @param map the map's codes, indexed [row][col]
+	 * @param filename the file to write
+	 */
+	public static void save(String[][] map, String filename) {
+		try (PrintWriter out = new PrintWriter(filename)) {
+			for (String[] line : map) {
+				out.println(String.join(" ", line));
+			}
+		} catch (FileNotFoundException fnf) {
+			String errorMsg = "%s is not a valid filename\n";
+			System.out.printf(errorMsg, filename);
+			fnf.printStackTrace();
+		}
+	}
+
+	/**
+	 * Generates one map and writes it to a file, or prints it.
+	 * Usage: MapGenerator rows cols seed [doors chips [wallDensity|maze]] [filename]
+	 */
+	public static void main(String[] args) {
+		if (args.length < 3) {
+			System.out.println("Usage: MapGenerator rows cols seed [doors chips [wallDensity|maze]] [filename]");
+			return;
+		}
+		MapGenerator generator = new MapGenerator(Long.parseLong(args[2]));
+		int next = 3;
+		if (args.length > 4) {
+			generator.setDoors(Integer.parseInt(args[3]));
+			generator.setChips(Integer.parseInt(args[4]));
+			next = 5;
+			if (args.length > 5 && args[5].equals("maze")) {
+				generator.setMaze(true);
+				next = 6;
+			} else if (args.length > 5 && args[5].matches("[0-9.]+")) {
+				generator.setWallDensity(Double.parseDouble(args[5]));
+				next = 6;
+			}
+		}
+		String[][] map = generator.generate(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+		if (args.length > next) {
+			save(map, args[next]);
+		} else {
+			for (String[] line : map) {
+				System.out.println(String.join(" ", line));
+			}
+		}
+	}
+}
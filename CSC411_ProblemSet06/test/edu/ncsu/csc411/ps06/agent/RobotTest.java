@@ -0,0 +1,36 @@
+package edu.ncsu.csc411.ps06.agent;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.Test;
+
+import edu.ncsu.csc411.ps06.environment.Environment;
+import edu.ncsu.csc411.ps06.utils.MapGenerator;
+
+/**
+ * Regression tests for the Robot on generated maps that the public maps
+ * do not cover.
+ */
+public class RobotTest {
+	private final int ITERATIONS = 1000; // Number of iterations ("moves") per map
+
+	/**
+	 * A map with more chips than the Robot's item mask can track is planned in
+	 * parts: the Robot collects the tracked chips, then must plan again for the
+	 * rest rather than stop at the end of the partial route.
+	 */
+	@Test
+	public void testMoreChipsThanTracked() {
+		for (long seed = 1; seed <= 3; seed++) {
+			MapGenerator generator = new MapGenerator(seed);
+			generator.setDoors(2);
+			generator.setChips(70);
+			Environment env = new Environment(generator.generate(30, 30));
+			for (int i = 1; i <= ITERATIONS && !env.goalConditionMet(); i++) {
+				env.updateEnvironment();
+			}
+			assertTrue(env.goalConditionMet(), "Seed " + seed + " ended with "
+					+ env.getNumRemainingChips() + " chips remaining");
+		}
+	}
+}